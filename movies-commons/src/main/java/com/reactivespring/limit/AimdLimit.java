@@ -0,0 +1,44 @@
+package com.reactivespring.limit;
+
+/**
+ * Additive increase, multiplicative decrease: cada requisição bem sucedida
+ * com o limite em uso aumenta o limite em 1; uma sobrecarga, ou uma
+ * requisição acima do timeout, o multiplica por backoffRatio.
+ */
+public class AimdLimit implements ConcurrencyLimit {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long timeoutNanos;
+
+    private final double backoffRatio;
+
+    private volatile int limit;
+
+    public AimdLimit(final ConcurrencyLimitProperties properties) {
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.timeoutNanos = properties.getAimd().getTimeout().toNanos();
+        this.backoffRatio = properties.getAimd().getBackoffRatio();
+        this.limit = properties.getInitialLimit();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(final long rttNanos, final int inFlight, final boolean dropped) {
+
+        if (dropped || rttNanos > timeoutNanos) {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+        } else if (inFlight * 2 >= limit) {
+            // com pouco tráfego o limite não é testado, então não cresce
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+}
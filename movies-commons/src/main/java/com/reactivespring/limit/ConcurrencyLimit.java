@@ -0,0 +1,18 @@
+package com.reactivespring.limit;
+
+/**
+ * Algoritmo que ajusta o número de requisições simultâneas a partir da
+ * latência de cada requisição concluída.
+ */
+public interface ConcurrencyLimit {
+
+    int getLimit();
+
+    /**
+     * @param rttNanos latência da requisição
+     * @param inFlight requisições em andamento quando ela começou
+     * @param dropped  se a requisição falhou por sobrecarga
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+
+}
@@ -0,0 +1,53 @@
+package com.reactivespring.limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registrada em META-INF/spring.factories, então basta o serviço depender
+ * do movies-commons. Desligada com concurrency-limit.enabled=false.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(prefix = "concurrency-limit", name = "enabled", matchIfMissing = true)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitAutoConfiguration {
+
+    @Bean
+    public ConcurrencyLimiter concurrencyLimiter(final ConcurrencyLimitProperties properties,
+                                                 final ObjectProvider<MeterRegistry> meterRegistry) {
+
+        final ConcurrencyLimit limit = properties.getAlgorithm() == ConcurrencyLimitProperties.Algorithm.AIMD
+                ? new AimdLimit(properties)
+                : new GradientLimit(properties);
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(limit);
+
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("http.server.concurrency.limit", limiter, ConcurrencyLimiter::getLimit)
+                    .description("Concurrent requests currently admitted by the adaptive limiter")
+                    .register(registry);
+            Gauge.builder("http.server.concurrency.in-flight", limiter, ConcurrencyLimiter::getInFlight)
+                    .description("Requests currently being handled")
+                    .register(registry);
+            FunctionCounter.builder("http.server.concurrency.rejected", limiter, ConcurrencyLimiter::getRejected)
+                    .description("Requests answered with 503 by the adaptive limiter")
+                    .register(registry);
+        });
+
+        return limiter;
+    }
+
+    @Bean
+    public ConcurrencyLimitWebFilter concurrencyLimitWebFilter(final ConcurrencyLimiter concurrencyLimiter,
+                                                               final ConcurrencyLimitProperties properties) {
+        return new ConcurrencyLimitWebFilter(concurrencyLimiter, properties);
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.reactivespring.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private Algorithm algorithm = Algorithm.GRADIENT;
+
+    /**
+     * Requisições simultâneas permitidas ao subir, antes de haver medições.
+     */
+    private int initialLimit = 100;
+
+    private int minLimit = 10;
+
+    private int maxLimit = 1000;
+
+    /**
+     * Valor do header Retry-After nas requisições recusadas.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * Caminhos que não passam pelo limite, como os streams de longa duração
+     * e o actuator.
+     */
+    private List<String> excludedPaths = new ArrayList<>(List.of("/actuator/**", "/**/stream"));
+
+    /**
+     * Respostas em NDJSON ou SSE ficam abertas enquanto o cliente consome e
+     * distorceriam a latência medida, então também não passam pelo limite.
+     */
+    private boolean excludeStreaming = true;
+
+    private final Aimd aimd = new Aimd();
+
+    private final Gradient gradient = new Gradient();
+
+    public enum Algorithm {
+        AIMD, GRADIENT
+    }
+
+    @Data
+    public static class Aimd {
+
+        /**
+         * Requisições mais lentas que isso contam como sobrecarga.
+         */
+        private Duration timeout = Duration.ofSeconds(1);
+
+        /**
+         * Fator aplicado ao limite a cada sobrecarga.
+         */
+        private double backoffRatio = 0.9;
+
+    }
+
+    @Data
+    public static class Gradient {
+
+        /**
+         * Quanto a latência recente pode passar da latência de longo prazo
+         * antes de o limite começar a cair.
+         */
+        private double rttTolerance = 1.5;
+
+        /**
+         * Peso de cada novo cálculo sobre o limite atual.
+         */
+        private double smoothing = 0.2;
+
+        /**
+         * Amostras que compõem a latência de longo prazo.
+         */
+        private int longWindow = 600;
+
+    }
+
+}
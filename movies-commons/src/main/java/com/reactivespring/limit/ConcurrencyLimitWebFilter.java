@@ -0,0 +1,92 @@
+package com.reactivespring.limit;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+
+/**
+ * Controle de admissão: acima do limite de requisições simultâneas a
+ * requisição é respondida na hora com 503 e Retry-After, sem chegar ao
+ * handler. A latência e o status de cada requisição admitida ajustam o
+ * limite.
+ */
+public class ConcurrencyLimitWebFilter implements WebFilter, Ordered {
+
+    private final ConcurrencyLimiter limiter;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final List<String> excludedPaths;
+
+    private final boolean excludeStreaming;
+
+    private final String retryAfter;
+
+    public ConcurrencyLimitWebFilter(final ConcurrencyLimiter limiter,
+                                     final ConcurrencyLimitProperties properties) {
+        this.limiter = limiter;
+        this.excludedPaths = List.copyOf(properties.getExcludedPaths());
+        this.excludeStreaming = properties.isExcludeStreaming();
+        this.retryAfter = String.valueOf(Math.max(1, (properties.getRetryAfter().toMillis() + 999) / 1000));
+    }
+
+    @Override
+    public int getOrder() {
+        // antes de qualquer outro filtro, para a recusa sair o mais barata possível
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+
+        if (isExcluded(exchange)) {
+            return chain.filter(exchange);
+        }
+
+        final int inFlight = limiter.tryAcquire();
+        if (inFlight < 0) {
+            final ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+            return response.setComplete();
+        }
+
+        final long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        limiter.release();
+                        return;
+                    }
+                    final HttpStatus status = exchange.getResponse().getStatusCode();
+                    final boolean dropped = signal == SignalType.ON_ERROR
+                            || (status != null && status.is5xxServerError());
+                    limiter.release(System.nanoTime() - start, inFlight, dropped);
+                });
+    }
+
+    private boolean isExcluded(final ServerWebExchange exchange) {
+
+        if (excludeStreaming) {
+            final List<MediaType> accept = exchange.getRequest().getHeaders().getAccept();
+            if (accept.contains(MediaType.APPLICATION_NDJSON) || accept.contains(MediaType.TEXT_EVENT_STREAM)) {
+                return true;
+            }
+        }
+
+        final String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        return excludedPaths.stream()
+                .anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.reactivespring.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conta as requisições em andamento e recusa as que passariam do limite
+ * atual do algoritmo.
+ */
+public class ConcurrencyLimiter {
+
+    private final ConcurrencyLimit limit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ConcurrencyLimiter(final ConcurrencyLimit limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @return as requisições em andamento incluindo esta, ou -1 se ela foi
+     * recusada
+     */
+    public int tryAcquire() {
+
+        final int current = inFlight.incrementAndGet();
+        if (current > limit.getLimit()) {
+            inFlight.decrementAndGet();
+            rejected.incrementAndGet();
+            return -1;
+        }
+        return current;
+    }
+
+    public void release(final long rttNanos, final int inFlightAtStart, final boolean dropped) {
+
+        inFlight.decrementAndGet();
+        limit.onSample(rttNanos, inFlightAtStart, dropped);
+    }
+
+    /**
+     * Libera sem alimentar o algoritmo, para requisições canceladas pelo
+     * cliente.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+}
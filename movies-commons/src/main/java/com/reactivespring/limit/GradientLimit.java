@@ -0,0 +1,79 @@
+package com.reactivespring.limit;
+
+/**
+ * Compara a latência recente com a de longo prazo. Enquanto elas são
+ * parecidas o limite cresce aos poucos; quando a recente sobe, por exemplo
+ * porque o MongoDB ficou lento, o limite cai na mesma proporção.
+ *
+ * <p>Baseado no Gradient2 da biblioteca concurrency-limits da Netflix.
+ */
+public class GradientLimit implements ConcurrencyLimit {
+
+    private static final double SHORT_WINDOW = 10;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double rttTolerance;
+
+    private final double smoothing;
+
+    private final double longWindow;
+
+    private double shortRtt;
+
+    private double longRtt;
+
+    private double estimatedLimit;
+
+    private volatile int limit;
+
+    public GradientLimit(final ConcurrencyLimitProperties properties) {
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.rttTolerance = properties.getGradient().getRttTolerance();
+        this.smoothing = properties.getGradient().getSmoothing();
+        this.longWindow = properties.getGradient().getLongWindow();
+        this.estimatedLimit = properties.getInitialLimit();
+        this.limit = properties.getInitialLimit();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(final long rttNanos, final int inFlight, final boolean dropped) {
+
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return;
+        }
+
+        shortRtt += (rttNanos - shortRtt) / SHORT_WINDOW;
+        longRtt += (rttNanos - longRtt) / longWindow;
+
+        // a latência de longo prazo muito acima da recente indica que a
+        // sobrecarga passou; ela é puxada para baixo para o limite voltar a subir
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        // com metade do limite ocioso a medição não diz nada sobre ele
+        if (inFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        final double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        final double queueSize = Math.sqrt(estimatedLimit);
+        final double newLimit = estimatedLimit * gradient + queueSize;
+
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit * (1 - smoothing) + newLimit * smoothing));
+        limit = (int) estimatedLimit;
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.reactivespring.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.HttpResources;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Métricas do runtime reativo que não dependem do código de cada serviço:
+ * os schedulers do Reactor (executor.* com a tag name) e a fila de tarefas
+ * de cada event loop do Netty que atende as requisições.
+ */
+public class ReactorMetrics implements InitializingBean, DisposableBean {
+
+    private final MeterRegistry meterRegistry;
+
+    public ReactorMetrics(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+
+        // vale para os schedulers criados daqui em diante, por isso roda na subida
+        Schedulers.enableMetrics();
+
+        bindEventLoops(HttpResources.get().onServer(LoopResources.DEFAULT_NATIVE));
+    }
+
+    @Override
+    public void destroy() {
+        Schedulers.disableMetrics();
+    }
+
+    /**
+     * Tarefas pendentes crescendo indicam um event loop bloqueado ou
+     * sobrecarregado, antes de a latência das respostas subir.
+     */
+    void bindEventLoops(final EventLoopGroup eventLoopGroup) {
+
+        int index = 0;
+        for (final EventExecutor executor : eventLoopGroup) {
+            if (executor instanceof SingleThreadEventExecutor) {
+                Gauge.builder("reactor.netty.eventloop.pending.tasks", (SingleThreadEventExecutor) executor,
+                                SingleThreadEventExecutor::pendingTasks)
+                        .description("Tasks waiting to run on the Netty event loop")
+                        .tag("name", "reactor-http-" + index)
+                        .register(meterRegistry);
+            }
+            index++;
+        }
+    }
+
+}
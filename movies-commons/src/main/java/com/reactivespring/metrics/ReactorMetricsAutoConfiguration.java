@@ -0,0 +1,28 @@
+package com.reactivespring.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Ativa as métricas de ReactorMetrics quando o serviço tem um MeterRegistry,
+ * normalmente pelo spring-boot-starter-actuator. Desligada com
+ * reactor-metrics.enabled=false.
+ */
+@Configuration(proxyBeanMethods = false)
+@AutoConfigureAfter(name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnBean(MeterRegistry.class)
+@ConditionalOnProperty(prefix = "reactor-metrics", name = "enabled", matchIfMissing = true)
+public class ReactorMetricsAutoConfiguration {
+
+    @Bean
+    public ReactorMetrics reactorMetrics(final MeterRegistry meterRegistry) {
+        return new ReactorMetrics(meterRegistry);
+    }
+
+}
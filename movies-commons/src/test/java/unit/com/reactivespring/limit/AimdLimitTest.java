@@ -0,0 +1,49 @@
+package com.reactivespring.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AimdLimitTest {
+
+    private AimdLimit limit() {
+        var properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(20);
+        properties.setMinLimit(10);
+        properties.getAimd().setTimeout(Duration.ofMillis(100));
+        return new AimdLimit(properties);
+    }
+
+    @Test
+    void onSample_increasesWhenLimitIsUsed() {
+
+        var limit = limit();
+
+        limit.onSample(Duration.ofMillis(10).toNanos(), 15, false);
+        assertEquals(21, limit.getLimit());
+
+        // com pouco tráfego o limite fica onde está
+        limit.onSample(Duration.ofMillis(10).toNanos(), 2, false);
+        assertEquals(21, limit.getLimit());
+    }
+
+    @Test
+    void onSample_backsOffOnOverload() {
+
+        var limit = limit();
+
+        limit.onSample(Duration.ofMillis(10).toNanos(), 15, true);
+        assertEquals(18, limit.getLimit());
+
+        limit.onSample(Duration.ofMillis(500).toNanos(), 15, false);
+        assertEquals(16, limit.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(Duration.ofMillis(500).toNanos(), 15, false);
+        }
+        assertEquals(10, limit.getLimit());
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.reactivespring.limit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitWebFilterTest {
+
+    private final ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+
+    private ConcurrencyLimitWebFilter filter(final ConcurrencyLimiter limiter) {
+        properties.setRetryAfter(Duration.ofMillis(1500));
+        return new ConcurrencyLimitWebFilter(limiter, properties);
+    }
+
+    private ConcurrencyLimiter limiter(final int limit) {
+        properties.setInitialLimit(limit);
+        properties.setMinLimit(limit);
+        properties.setMaxLimit(limit);
+        return new ConcurrencyLimiter(new AimdLimit(properties));
+    }
+
+    @Test
+    void filter_rejectsAboveLimit() {
+
+        var limiter = limiter(1);
+        var filter = filter(limiter);
+        var pending = Sinks.empty();
+
+        var first = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movies/abc"));
+        var firstResult = filter.filter(first, exchange -> pending.asMono().then()).subscribe();
+        assertEquals(1, limiter.getInFlight());
+
+        var second = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movies/abc"));
+        StepVerifier.create(filter.filter(second, exchange -> Mono.error(new IllegalStateException("not admitted"))))
+                .verifyComplete();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, second.getResponse().getStatusCode());
+        assertEquals("2", second.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, limiter.getRejected());
+
+        pending.tryEmitEmpty();
+        assertTrue(firstResult.isDisposed());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void filter_skipsExcludedRequests() {
+
+        var limiter = limiter(1);
+        var filter = filter(limiter);
+        limiter.tryAcquire();
+
+        var stream = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/reviews/stream"));
+        StepVerifier.create(filter.filter(stream, exchange -> Mono.empty())).verifyComplete();
+        assertNull(stream.getResponse().getStatusCode());
+
+        var ndjson = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movies")
+                .accept(MediaType.APPLICATION_NDJSON));
+        StepVerifier.create(filter.filter(ndjson, exchange -> Mono.empty())).verifyComplete();
+        assertNull(ndjson.getResponse().getStatusCode());
+
+        assertEquals(0, limiter.getRejected());
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.reactivespring.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientLimitTest {
+
+    private GradientLimit limit() {
+        var properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(100);
+        properties.setMinLimit(10);
+        properties.setMaxLimit(200);
+        return new GradientLimit(properties);
+    }
+
+    private void samples(final GradientLimit limit, final int count, final Duration rtt) {
+        for (int i = 0; i < count; i++) {
+            limit.onSample(rtt.toNanos(), limit.getLimit(), false);
+        }
+    }
+
+    @Test
+    void onSample_growsWithSteadyLatency() {
+
+        var limit = limit();
+
+        samples(limit, 50, Duration.ofMillis(10));
+
+        assertEquals(200, limit.getLimit());
+    }
+
+    @Test
+    void onSample_shrinksWhenLatencyRises() {
+
+        var limit = limit();
+        samples(limit, 200, Duration.ofMillis(10));
+
+        // o MongoDB fica 10x mais lento
+        samples(limit, 50, Duration.ofMillis(100));
+
+        assertEquals(10, limit.getLimit());
+
+        // e volta ao normal
+        samples(limit, 200, Duration.ofMillis(10));
+
+        assertTrue(limit.getLimit() > 100);
+    }
+
+    @Test
+    void onSample_ignoresIdleLimit() {
+
+        var limit = limit();
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(Duration.ofMillis(10).toNanos(), 5, false);
+        }
+
+        assertEquals(100, limit.getLimit());
+    }
+
+}
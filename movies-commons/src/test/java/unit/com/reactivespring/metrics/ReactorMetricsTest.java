@@ -0,0 +1,30 @@
+package com.reactivespring.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReactorMetricsTest {
+
+    @Test
+    void bindEventLoops() {
+
+        var meterRegistry = new SimpleMeterRegistry();
+        var eventLoopGroup = new NioEventLoopGroup(2);
+
+        try {
+            new ReactorMetrics(meterRegistry).bindEventLoops(eventLoopGroup);
+
+            assertEquals(2, meterRegistry.find("reactor.netty.eventloop.pending.tasks").gauges().size());
+            assertEquals(0, meterRegistry.get("reactor.netty.eventloop.pending.tasks")
+                    .tag("name", "reactor-http-0")
+                    .gauge()
+                    .value());
+        } finally {
+            eventLoopGroup.shutdownGracefully();
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.reactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "movies-info.bulk")
+public class MovieInfoBulkProperties {
+
+    /**
+     * Quantidade de MovieInfo enviados ao MongoDB em cada insertMany.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Quantidade de lotes sendo gravados ao mesmo tempo.
+     */
+    private int concurrency = 2;
+
+}
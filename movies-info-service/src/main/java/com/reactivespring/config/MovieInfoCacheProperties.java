@@ -0,0 +1,22 @@
+package com.reactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "movies-info.cache")
+public class MovieInfoCacheProperties {
+
+    /**
+     * Quantidade máxima de MovieInfo mantidos em cache.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Tempo que um MovieInfo permanece em cache depois de carregado.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+}
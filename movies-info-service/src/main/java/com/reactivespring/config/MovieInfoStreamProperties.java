@@ -0,0 +1,39 @@
+package com.reactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "movies-info.stream")
+public class MovieInfoStreamProperties {
+
+    /**
+     * Quantidade máxima de MovieInfo mantidos para replay a novos subscribers.
+     */
+    private int historySize = 500;
+
+    /**
+     * Idade máxima de um MovieInfo no buffer de replay. Quando nulo, apenas
+     * o limite por quantidade é aplicado.
+     */
+    private Duration historyMaxAge = Duration.ofMinutes(10);
+
+    /**
+     * Tamanho da fila individual de cada subscriber.
+     */
+    private int subscriberBufferSize = 256;
+
+    /**
+     * O que fazer quando a fila de um subscriber lento está cheia.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        DROP_NEWEST,
+        DISCONNECT
+    }
+
+}
@@ -33,7 +33,8 @@ public class FluxAndMonoController {
          * incrementados do valor 1.
          */
         return Flux.interval(Duration.ofSeconds(1))
-                .log();
+                .name("movies-info.interval")
+                .metrics();
     }
 
 }
@@ -0,0 +1,47 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.domain.MovieInfo;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * ETags calculados a partir da version de cada MovieInfo, sem serializar o
+ * documento. Quando a version não foi lida (documentos antigos ou fields sem
+ * version) o hash do próprio conteúdo é usado.
+ *
+ * <p>Todos são fracos (W/): com a compressão ligada a mesma version é
+ * enviada com e sem gzip/deflate, e esses bytes não são idênticos. O
+ * If-None-Match é comparado pelo Spring com comparação fraca, então o
+ * cliente pode devolver o ETag com ou sem o W/.
+ */
+final class MovieInfoETags {
+
+    private MovieInfoETags() {
+    }
+
+    static String of(final MovieInfo movieInfo) {
+        return "W/\"" + token(movieInfo) + "\"";
+    }
+
+    static String of(final List<MovieInfo> movieInfos, final Set<String> fields, final String nextPageToken) {
+
+        int hash = Objects.hash(fields, nextPageToken);
+        for (MovieInfo movieInfo : movieInfos) {
+            hash = 31 * hash + token(movieInfo).hashCode();
+        }
+
+        return "W/\"" + Integer.toHexString(hash) + "\"";
+    }
+
+    private static String token(final MovieInfo movieInfo) {
+
+        if (movieInfo.getVersion() != null) {
+            return movieInfo.getId() + "-" + movieInfo.getVersion();
+        }
+
+        return movieInfo.getId() + "-" + Integer.toHexString(movieInfo.hashCode());
+    }
+
+}
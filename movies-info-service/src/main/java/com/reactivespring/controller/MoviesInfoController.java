@@ -1,7 +1,11 @@
 package com.reactivespring.controller;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBulkResult;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.service.MovieInfoBulkService;
 import com.reactivespring.service.MovieInfoService;
+import com.reactivespring.stream.MovieInfoEventStream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -10,9 +14,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 import javax.validation.Valid;
+import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @RestController
@@ -21,53 +26,91 @@ public class MoviesInfoController {
 
     private final MovieInfoService movieInfoService;
 
-    /**
-     * Ao usar replay all todos os subscribers receberão todos os dados
-     * que foram publicados no sink, mesmo antes de sua subscrição.
-     * Caso no lugar do all o latest for usado, novos subscriptions
-     * receberão apenas a ultima informação recebida em diante.
-     */
-    Sinks.Many<MovieInfo> movieInfoSink = Sinks.many().replay().all();
+    private final MovieInfoBulkService movieInfoBulkService;
+
+    private final MovieInfoEventStream movieInfoEventStream;
 
     @Autowired
-    public MoviesInfoController(final MovieInfoService movieInfoService) {
+    public MoviesInfoController(final MovieInfoService movieInfoService,
+                                final MovieInfoBulkService movieInfoBulkService,
+                                final MovieInfoEventStream movieInfoEventStream) {
         this.movieInfoService = movieInfoService;
+        this.movieInfoBulkService = movieInfoBulkService;
+        this.movieInfoEventStream = movieInfoEventStream;
     }
 
-    @GetMapping("/movies-info")
-    public Flux<MovieInfo> getAllMovieInfo(@RequestParam(value = "year", required = false) Integer year) {
+    public static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
+
+    /**
+     * Sempre paginado: sem size a página tem 100 MovieInfo, mesmo quando
+     * nenhum pageToken é enviado. Se houver mais, o token da próxima página
+     * vem no header X-Next-Page-Token. Para o catálogo inteiro em uma só
+     * resposta use o Accept application/x-ndjson.
+     */
+    @GetMapping(value = "/movies-info", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<MovieInfo>>> getAllMovieInfo(@RequestParam(value = "year", required = false) Integer year,
+                                                                 @RequestParam(value = "pageToken", required = false) String pageToken,
+                                                                 @RequestParam(value = "size", defaultValue = "100") int size,
+                                                                 @RequestParam(value = "fields", required = false) Set<String> fields) {
 
         log.info("Year is: {}", year);
 
-        if (year != null) {
-            return movieInfoService.getAllMovieInfoByYear(year);
-        }
+        // o token da próxima página vai no header para que o corpo continue sendo a lista de MovieInfo
+        return movieInfoService.getMovieInfoPage(year, pageToken, size, fields)
+                .map(page -> {
+                    final ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .eTag(MovieInfoETags.of(page.getContent(), fields, page.getNextPageToken()));
+                    if (page.getNextPageToken() != null) {
+                        response.header(NEXT_PAGE_TOKEN_HEADER, page.getNextPageToken());
+                    }
+                    return response.body(page.getContent());
+                });
+    }
+
+    @GetMapping(value = "/movies-info", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovieInfo> streamAllMovieInfo(@RequestParam(value = "year", required = false) Integer year,
+                                              @RequestParam(value = "size", defaultValue = "100") int size,
+                                              @RequestParam(value = "fields", required = false) Set<String> fields) {
 
-        return movieInfoService.getAllMovieInfo();
+        return movieInfoService.streamAllMovieInfo(year, size, fields);
     }
 
+    /**
+     * Com o ETag na resposta, uma requisição com If-None-Match igual recebe
+     * 304 sem corpo, sem que o MovieInfo seja serializado.
+     */
     @GetMapping("/movies-info/{id}")
     public Mono<ResponseEntity<MovieInfo>> getMovieInfoById(@PathVariable("id") String movieId) {
 
         return movieInfoService.getMovieInfoById(movieId)
-                .map(ResponseEntity::ok)
+                .map(movieInfo -> ResponseEntity.ok()
+                        .eTag(MovieInfoETags.of(movieInfo))
+                        .body(movieInfo))
                 .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
     }
 
     @GetMapping(value = "/movies-info/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
-    public Flux<MovieInfo> getMovieInfoById() {
+    public Flux<MovieInfoEvent> streamMovieInfo(@RequestParam(value = "resumeToken", required = false) String resumeToken) {
 
-        // Sink subscriber
-        return movieInfoSink.asFlux();
+        // inserts, updates e deletes, retomando a partir do último evento recebido pelo cliente
+        return movieInfoEventStream.subscribe(resumeToken);
     }
 
     @PostMapping("/movies-info")
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<MovieInfo> addMovieInfo(@RequestBody @Valid final MovieInfo movieInfo) {
 
-        // quando uma nova MovieInfo é adicionada, é publicada na sink
+        // quando uma nova MovieInfo é adicionada, é publicada no stream
         return movieInfoService.addMovieInfo(movieInfo)
-                .doOnNext(savedMovieInfo -> movieInfoSink.tryEmitNext(savedMovieInfo));
+                .doOnNext(savedMovieInfo -> movieInfoEventStream.publish(MovieInfoEvent.inserted(savedMovieInfo)));
+    }
+
+    @PostMapping(value = "/movies-info/bulk",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovieInfoBulkResult> addMovieInfos(@RequestBody final Flux<MovieInfo> movieInfos) {
+
+        // cada MovieInfo é validado individualmente, um inválido não rejeita o restante
+        return movieInfoBulkService.addMovieInfos(movieInfos);
     }
 
     @PutMapping("/movies-info/{id}")
@@ -75,6 +118,7 @@ public class MoviesInfoController {
                                                 @RequestBody final MovieInfo updatedMovieInfo) {
 
         return movieInfoService.updateMovieInfo(movieId, updatedMovieInfo)
+                .doOnNext(savedMovieInfo -> movieInfoEventStream.publish(MovieInfoEvent.updated(savedMovieInfo)))
                 .map(ResponseEntity::ok)
                 .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
     }
@@ -83,7 +127,10 @@ public class MoviesInfoController {
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public Mono<Void> updateMovieInfo(@PathVariable("id") String movieId) {
 
-        return movieInfoService.deleteMovieInfo(movieId);
+        // só um documento que existia gera evento de remoção
+        return movieInfoService.deleteMovieInfo(movieId)
+                .doOnNext(removedMovieInfo -> movieInfoEventStream.publish(MovieInfoEvent.deleted(movieId)))
+                .then();
     }
 
 }
@@ -1,10 +1,15 @@
 package com.reactivespring.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.NotBlank;
@@ -18,16 +23,32 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Document
+// campos não projetados (fields=) não são serializados
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@CompoundIndexes({
+        @CompoundIndex(name = "year_title", def = "{'year': 1, 'title': 1}"),
+        // atende ?year= paginado, que ordena por _id
+        @CompoundIndex(name = "year_id", def = "{'year': 1, '_id': 1}")
+})
 public class MovieInfo {
 
     @Id
     private String id;
+    @Indexed
     @NotBlank(message = "movieInfo.name must be present")
     private String title;
+    @Indexed
     @NotNull
     @Positive(message = "movieInfo.year must be a positive value")
     private Integer year;
     private List<@NotBlank(message = "movieInfo.cast must be present") String> cast;
     private LocalDate releasedAt;
+    // incrementada a cada escrita, permite detectar updates concorrentes
+    @Version
+    private Long version;
+
+    public MovieInfo(String id, String title, Integer year, List<String> cast, LocalDate releasedAt) {
+        this(id, title, year, cast, releasedAt, null);
+    }
 
 }
@@ -0,0 +1,24 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoBulkResult {
+
+    // posição do MovieInfo no corpo da requisição
+    private long index;
+    private String id;
+    private Status status;
+    private String error;
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        FAILED
+    }
+
+}
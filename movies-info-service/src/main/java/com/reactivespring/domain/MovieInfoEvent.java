@@ -0,0 +1,38 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class MovieInfoEvent {
+
+    private String id;
+    private OperationType operationType;
+    // nulo quando o MovieInfo foi removido
+    private MovieInfo movieInfo;
+    private String resumeToken;
+
+    public enum OperationType {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    public static MovieInfoEvent inserted(final MovieInfo movieInfo) {
+        return new MovieInfoEvent(movieInfo.getId(), OperationType.INSERT, movieInfo, null);
+    }
+
+    public static MovieInfoEvent updated(final MovieInfo movieInfo) {
+        return new MovieInfoEvent(movieInfo.getId(), OperationType.UPDATE, movieInfo, null);
+    }
+
+    public static MovieInfoEvent deleted(final String movieId) {
+        return new MovieInfoEvent(movieId, OperationType.DELETE, null, null);
+    }
+
+}
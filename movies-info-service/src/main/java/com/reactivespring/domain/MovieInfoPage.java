@@ -0,0 +1,18 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoPage {
+
+    private List<MovieInfo> content;
+    // nulo quando não há próxima página
+    private String nextPageToken;
+
+}
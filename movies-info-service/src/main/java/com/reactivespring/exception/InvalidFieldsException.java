@@ -0,0 +1,9 @@
+package com.reactivespring.exception;
+
+public class InvalidFieldsException extends RuntimeException {
+
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+
+}
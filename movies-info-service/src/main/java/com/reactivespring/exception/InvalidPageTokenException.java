@@ -0,0 +1,9 @@
+package com.reactivespring.exception;
+
+public class InvalidPageTokenException extends RuntimeException {
+
+    public InvalidPageTokenException(String message, Throwable ex) {
+        super(message, ex);
+    }
+
+}
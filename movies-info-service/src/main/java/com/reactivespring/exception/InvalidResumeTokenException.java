@@ -0,0 +1,9 @@
+package com.reactivespring.exception;
+
+public class InvalidResumeTokenException extends RuntimeException {
+
+    public InvalidResumeTokenException(String message, Throwable ex) {
+        super(message, ex);
+    }
+
+}
@@ -1,7 +1,12 @@
 package com.reactivespring.exceptionhandler;
 
+import com.reactivespring.exception.InvalidFieldsException;
+import com.reactivespring.exception.InvalidPageTokenException;
+import com.reactivespring.exception.InvalidResumeTokenException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -30,4 +35,49 @@ public class GlobalErrorHandler {
                 .body(error);
     }
 
+    @ExceptionHandler(InvalidPageTokenException.class)
+    public ResponseEntity<String> handleInvalidPageToken(InvalidPageTokenException ex) {
+
+        log.error("Exception caught in handleInvalidPageToken: {}", ex.getMessage(), ex);
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidResumeTokenException.class)
+    public ResponseEntity<String> handleInvalidResumeToken(InvalidResumeTokenException ex) {
+
+        log.error("Exception caught in handleInvalidResumeToken: {}", ex.getMessage(), ex);
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+
+        log.error("Exception caught in handleOptimisticLockingFailure: {}", ex.getMessage(), ex);
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<String> handleDuplicateKey(DuplicateKeyException ex) {
+
+        log.error("Exception caught in handleDuplicateKey: {}", ex.getMessage(), ex);
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("movieInfo.id already exists");
+    }
+
+    @ExceptionHandler(InvalidFieldsException.class)
+    public ResponseEntity<String> handleInvalidFields(InvalidFieldsException ex) {
+
+        log.error("Exception caught in handleInvalidFields: {}", ex.getMessage(), ex);
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ex.getMessage());
+    }
+
 }
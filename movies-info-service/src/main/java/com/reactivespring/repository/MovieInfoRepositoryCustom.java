@@ -0,0 +1,43 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.MovieInfo;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface MovieInfoRepositoryCustom {
+
+    /**
+     * Busca até size MovieInfo ordenados por _id e posteriores a afterId
+     * (keyset pagination). Quando year é informado apenas filmes daquele ano
+     * são considerados. Quando fields é informado apenas esses campos (e o id)
+     * são lidos do MongoDB.
+     */
+    Flux<MovieInfo> findPage(Integer year, String afterId, int size, Set<String> fields);
+
+    /**
+     * Atualiza o MovieInfo em uma única operação atômica e retorna o documento
+     * já atualizado. Quando updatedMovieInfo traz uma version, o update só é
+     * aplicado se ela for igual à version atual; caso contrário nada é
+     * retornado.
+     */
+    Mono<MovieInfo> update(String movieId, MovieInfo updatedMovieInfo);
+
+    /**
+     * Remove o MovieInfo em uma única operação atômica e retorna o documento
+     * removido. Quando o id não existe nada é retornado.
+     */
+    Mono<MovieInfo> remove(String movieId);
+
+    /**
+     * Insere todos os MovieInfo em um único insertMany não ordenado, então a
+     * falha de um documento não impede a gravação dos demais. Os ids gerados
+     * são atribuídos aos próprios objetos e o retorno traz o erro de cada
+     * documento que não foi gravado, indexado pela posição na lista.
+     */
+    Mono<Map<Integer, String>> insertUnordered(List<MovieInfo> movieInfos);
+
+}
@@ -0,0 +1,123 @@
+package com.reactivespring.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.reactivespring.domain.MovieInfo;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class MovieInfoRepositoryCustomImpl implements MovieInfoRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    public MovieInfoRepositoryCustomImpl(final ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Flux<MovieInfo> findPage(final Integer year, final String afterId, final int size, final Set<String> fields) {
+
+        final Query query = new Query()
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(size);
+
+        if (fields != null && !fields.isEmpty()) {
+            query.fields().include(fields.toArray(String[]::new));
+        }
+
+        if (year != null) {
+            query.addCriteria(Criteria.where("year").is(year));
+        }
+
+        if (afterId != null) {
+            query.addCriteria(afterIdCriteria(afterId));
+        }
+
+        return reactiveMongoTemplate.find(query, MovieInfo.class);
+    }
+
+    @Override
+    public Mono<MovieInfo> update(final String movieId, final MovieInfo updatedMovieInfo) {
+
+        final Query query = new Query(Criteria.where("_id").is(movieId));
+
+        if (updatedMovieInfo.getVersion() != null) {
+            query.addCriteria(Criteria.where("version").is(updatedMovieInfo.getVersion()));
+        }
+
+        final Update update = new Update()
+                .set("title", updatedMovieInfo.getTitle())
+                .set("year", updatedMovieInfo.getYear())
+                .set("cast", updatedMovieInfo.getCast())
+                .set("releasedAt", updatedMovieInfo.getReleasedAt())
+                .inc("version", 1);
+
+        return reactiveMongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), MovieInfo.class);
+    }
+
+    @Override
+    public Mono<MovieInfo> remove(final String movieId) {
+
+        return reactiveMongoTemplate.findAndRemove(new Query(Criteria.where("_id").is(movieId)), MovieInfo.class);
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertUnordered(final List<MovieInfo> movieInfos) {
+
+        final List<Document> documents = new ArrayList<>(movieInfos.size());
+        for (MovieInfo movieInfo : movieInfos) {
+            movieInfo.setVersion(0L);
+            final Document document = new Document();
+            reactiveMongoTemplate.getConverter().write(movieInfo, document);
+            documents.add(document);
+        }
+
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(MovieInfo.class))
+                .flatMap(collection -> Mono.from(collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+                .map(result -> Map.<Integer, String>of())
+                .onErrorResume(MongoBulkWriteException.class, ex -> Mono.just(ex.getWriteErrors().stream()
+                        .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage))))
+                // o driver atribui o _id aos documentos que não tinham um
+                .doOnNext(errors -> {
+                    for (int i = 0; i < movieInfos.size(); i++) {
+                        movieInfos.get(i).setId(documents.get(i).get("_id").toString());
+                    }
+                });
+    }
+
+    /**
+     * O MongoDB só compara valores do mesmo tipo BSON e ordena strings antes
+     * de ObjectIds. Por isso, depois de um id string, todos os ObjectIds
+     * também fazem parte das próximas páginas.
+     */
+    private static Criteria afterIdCriteria(final String afterId) {
+
+        if (ObjectId.isValid(afterId)) {
+            return Criteria.where("_id").gt(new ObjectId(afterId));
+        }
+
+        return new Criteria().orOperator(
+                Criteria.where("_id").gt(afterId),
+                Criteria.where("_id").type(JsonSchemaObject.Type.objectIdType()));
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.reactivespring.service;
+
+import com.reactivespring.config.MovieInfoBulkProperties;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBulkResult;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.repository.MovieInfoRepository;
+import com.reactivespring.stream.MovieInfoEventStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class MovieInfoBulkService {
+
+    private final MovieInfoRepository movieInfoRepository;
+
+    private final MovieInfoEventStream movieInfoEventStream;
+
+    private final Validator validator;
+
+    private final MovieInfoBulkProperties properties;
+
+    @Autowired
+    public MovieInfoBulkService(final MovieInfoRepository movieInfoRepository,
+                                final MovieInfoEventStream movieInfoEventStream,
+                                final Validator validator,
+                                final MovieInfoBulkProperties properties) {
+        this.movieInfoRepository = movieInfoRepository;
+        this.movieInfoEventStream = movieInfoEventStream;
+        this.validator = validator;
+        this.properties = properties;
+    }
+
+    /**
+     * Os MovieInfo são validados um a um e agrupados em lotes de batchSize para
+     * gravação. No máximo concurrency lotes são gravados ao mesmo tempo, então
+     * a memória usada não depende do tamanho do corpo da requisição. Os
+     * resultados são devolvidos na mesma ordem da entrada.
+     */
+    public Flux<MovieInfoBulkResult> addMovieInfos(final Flux<MovieInfo> movieInfos) {
+
+        return movieInfos.index()
+                .buffer(properties.getBatchSize())
+                .flatMapSequential(this::insertBatch, properties.getConcurrency())
+                .flatMapIterable(results -> results);
+    }
+
+    private Mono<List<MovieInfoBulkResult>> insertBatch(final List<Tuple2<Long, MovieInfo>> batch) {
+
+        final List<MovieInfoBulkResult> results = new ArrayList<>(batch.size());
+        final List<MovieInfo> valid = new ArrayList<>(batch.size());
+        final List<MovieInfoBulkResult> validResults = new ArrayList<>(batch.size());
+
+        for (Tuple2<Long, MovieInfo> indexed : batch) {
+            final Set<ConstraintViolation<MovieInfo>> violations = validator.validate(indexed.getT2());
+            final MovieInfoBulkResult result = new MovieInfoBulkResult(indexed.getT1(), null, null, null);
+
+            if (violations.isEmpty()) {
+                valid.add(indexed.getT2());
+                validResults.add(result);
+            } else {
+                result.setStatus(MovieInfoBulkResult.Status.INVALID);
+                result.setError(violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            }
+            results.add(result);
+        }
+
+        if (valid.isEmpty()) {
+            return Mono.just(results);
+        }
+
+        return movieInfoRepository.insertUnordered(valid)
+                .name("movies-info.repository").tag("operation", "insertUnordered").metrics()
+                .map(errors -> {
+                    complete(valid, validResults, errors);
+                    return results;
+                });
+    }
+
+    private void complete(final List<MovieInfo> inserted,
+                          final List<MovieInfoBulkResult> results,
+                          final Map<Integer, String> errors) {
+
+        final List<MovieInfoEvent> events = new ArrayList<>(inserted.size());
+
+        for (int i = 0; i < inserted.size(); i++) {
+            final MovieInfoBulkResult result = results.get(i);
+
+            if (errors.containsKey(i)) {
+                result.setStatus(MovieInfoBulkResult.Status.FAILED);
+                result.setError(errors.get(i));
+            } else {
+                result.setStatus(MovieInfoBulkResult.Status.CREATED);
+                result.setId(inserted.get(i).getId());
+                events.add(MovieInfoEvent.inserted(inserted.get(i)));
+            }
+        }
+
+        movieInfoEventStream.publishAll(events);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.reactivespring.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactivespring.config.MovieInfoCacheProperties;
+import com.reactivespring.domain.MovieInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Cache read-through de MovieInfo por id. O valor guardado é o future da
+ * busca, então requisições concorrentes pelo mesmo id que não estão em cache
+ * compartilham uma única ida ao MongoDB. Ids inexistentes não são guardados.
+ */
+@Component
+public class MovieInfoCache {
+
+    private final AsyncCache<String, MovieInfo> cache;
+
+    @Autowired
+    public MovieInfoCache(final MovieInfoCacheProperties properties,
+                          final MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .buildAsync();
+
+        // hits, misses e evictions ficam disponíveis como cache.gets, cache.evictions...
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "movieInfo");
+    }
+
+    public Mono<MovieInfo> get(final String movieId, final Function<String, Mono<MovieInfo>> loader) {
+
+        return Mono.fromFuture(() -> cache.get(movieId, (key, executor) -> loader.apply(key).toFuture()));
+    }
+
+    public void invalidate(final String movieId) {
+
+        cache.synchronous().invalidate(movieId);
+    }
+
+}
@@ -1,57 +1,174 @@
 package com.reactivespring.service;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoPage;
+import com.reactivespring.exception.InvalidFieldsException;
+import com.reactivespring.exception.InvalidPageTokenException;
 import com.reactivespring.repository.MovieInfoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
 @Service
 public class MovieInfoService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Campos que podem ser pedidos em fields. O id é sempre retornado.
+     */
+    public static final Set<String> PROJECTABLE_FIELDS = Set.of("id", "title", "year", "cast", "releasedAt", "version");
+
+    /**
+     * Nome das métricas do Reactor (reactor.flow.duration, reactor.onNext.delay...)
+     * das consultas ao MongoDB; a tag operation separa cada consulta.
+     */
+    private static final String REPOSITORY_METRICS = "movies-info.repository";
+
     private final MovieInfoRepository movieInfoRepository;
 
+    private final MovieInfoCache movieInfoCache;
+
     @Autowired
-    public MovieInfoService(final MovieInfoRepository movieInfoRepository) {
+    public MovieInfoService(final MovieInfoRepository movieInfoRepository,
+                            final MovieInfoCache movieInfoCache) {
         this.movieInfoRepository = movieInfoRepository;
+        this.movieInfoCache = movieInfoCache;
     }
 
-    public Flux<MovieInfo> getAllMovieInfo() {
+    /**
+     * Página ordenada por _id. O nextPageToken é opaco para o cliente e
+     * carrega o último id da página, que é o ponto de partida da próxima.
+     */
+    public Mono<MovieInfoPage> getMovieInfoPage(final Integer year, final String pageToken, final int size,
+                                                final Set<String> fields) {
+
+        final int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
 
-        return movieInfoRepository.findAll();
+        return Mono.fromCallable(() -> decodePageToken(pageToken))
+                .flatMap(afterId -> findPage(year, afterId, pageSize, fields))
+                .switchIfEmpty(Mono.defer(() -> findPage(year, null, pageSize, fields)))
+                .map(movieInfos -> new MovieInfoPage(movieInfos,
+                        movieInfos.size() < pageSize ? null : encodePageToken(lastId(movieInfos))));
     }
 
-    public Flux<MovieInfo> getAllMovieInfoByYear(Integer year) {
-        return movieInfoRepository.findByYear(year);
+    /**
+     * Percorre a coleção em lotes de batchSize, buscando o próximo lote apenas
+     * quando o anterior foi consumido. Cada lote é uma consulta curta, então
+     * nenhum cursor fica aberto durante todo o streaming.
+     */
+    public Flux<MovieInfo> streamAllMovieInfo(final Integer year, final int batchSize, final Set<String> fields) {
+
+        final int pageSize = Math.max(1, Math.min(batchSize, MAX_PAGE_SIZE));
+
+        return findPage(year, null, pageSize, fields)
+                .expand(movieInfos -> movieInfos.size() < pageSize
+                        ? Mono.empty()
+                        : findPage(year, lastId(movieInfos), pageSize, fields))
+                .concatMapIterable(Function.identity())
+                .name("movies-info.stream-all").metrics();
     }
 
     public Mono<MovieInfo> getMovieInfoById(String movieId) {
 
-        return movieInfoRepository.findById(movieId);
+        return movieInfoCache.get(movieId, id -> movieInfoRepository.findById(id)
+                .name(REPOSITORY_METRICS).tag("operation", "findById").metrics());
     }
 
+    /**
+     * POST sempre cria: a version do corpo é ignorada e o MovieInfo nasce na
+     * version 0. Um id informado pelo cliente é mantido, mas, como na
+     * ingestão em massa, um id que já existe falha com DuplicateKeyException
+     * (409) em vez de sobrescrever o documento; alterações vão pelo PUT.
+     */
     public Mono<MovieInfo> addMovieInfo(final MovieInfo movieInfo) {
 
-        return movieInfoRepository.save(movieInfo);
+        movieInfo.setVersion(null);
+
+        return movieInfoRepository.insert(movieInfo)
+                .name(REPOSITORY_METRICS).tag("operation", "insert").metrics();
     }
 
     public Mono<MovieInfo> updateMovieInfo(final String movieId,
                                            final MovieInfo updatedMovieInfo) {
 
-        return movieInfoRepository.findById(movieId)
-                .flatMap(movieInfo -> {
-                    movieInfo.setTitle(updatedMovieInfo.getTitle());
-                    movieInfo.setYear(updatedMovieInfo.getYear());
-                    movieInfo.setCast(updatedMovieInfo.getCast());
-                    movieInfo.setReleasedAt(updatedMovieInfo.getReleasedAt());
+        return movieInfoRepository.update(movieId, updatedMovieInfo)
+                .name(REPOSITORY_METRICS).tag("operation", "update").metrics()
+                .switchIfEmpty(Mono.defer(() -> versionConflict(movieId, updatedMovieInfo.getVersion())))
+                .doOnSuccess(savedMovieInfo -> movieInfoCache.invalidate(movieId));
+    }
+
+    /**
+     * Retorna o MovieInfo removido, ou vazio quando o id não existia.
+     */
+    public Mono<MovieInfo> deleteMovieInfo(final String movieId) {
+        return movieInfoRepository.remove(movieId)
+                .name(REPOSITORY_METRICS).tag("operation", "remove").metrics()
+                .doOnSuccess(removedMovieInfo -> movieInfoCache.invalidate(movieId));
+    }
 
-                    return movieInfoRepository.save(movieInfo);
-                });
+    /**
+     * Quando o update atômico não retorna nada e uma version foi informada,
+     * o id pode não existir ou a version estar desatualizada. Só nesse caso
+     * uma segunda consulta é feita para diferenciar as duas situações.
+     */
+    private Mono<MovieInfo> versionConflict(final String movieId, final Long version) {
+
+        if (version == null) {
+            return Mono.empty();
+        }
+
+        return movieInfoRepository.existsById(movieId)
+                .filter(Boolean::booleanValue)
+                .flatMap(exists -> Mono.error(new OptimisticLockingFailureException(
+                        "movieInfo.version " + version + " is out of date")));
     }
 
-    public Mono<Void> deleteMovieInfo(final String movieId) {
-        return movieInfoRepository.deleteById(movieId);
+    private Mono<List<MovieInfo>> findPage(final Integer year, final String afterId, final int size,
+                                           final Set<String> fields) {
+
+        return Mono.defer(() -> movieInfoRepository.findPage(year, afterId, size, validateFields(fields))
+                .name(REPOSITORY_METRICS).tag("operation", "findPage").metrics()
+                .collectList());
+    }
+
+    private static Set<String> validateFields(final Set<String> fields) {
+
+        if (fields != null && !PROJECTABLE_FIELDS.containsAll(fields)) {
+            throw new InvalidFieldsException("movieInfo.fields must be a subset of " + PROJECTABLE_FIELDS);
+        }
+
+        return fields;
+    }
+
+    private static String lastId(final List<MovieInfo> movieInfos) {
+        return movieInfos.get(movieInfos.size() - 1).getId();
+    }
+
+    private static String encodePageToken(final String afterId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(afterId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePageToken(final String pageToken) {
+
+        if (pageToken == null) {
+            return null;
+        }
+
+        try {
+            return new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidPageTokenException("movieInfo.pageToken is not valid", ex);
+        }
     }
 
 }
@@ -0,0 +1,157 @@
+package com.reactivespring.stream;
+
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.reactivespring.config.MovieInfoStreamProperties;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.exception.InvalidResumeTokenException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BSONException;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.json.JsonParseException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stream alimentado pelo change stream da coleção de MovieInfo, portanto vê
+ * as escritas feitas por qualquer réplica do serviço. Nada é mantido em
+ * memória: quem reconecta usa o resumeToken do último evento recebido e o
+ * próprio MongoDB reenvia o que foi perdido.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "movies-info.stream", name = "source", havingValue = "change-stream", matchIfMissing = true)
+public class ChangeStreamMovieInfoEventStream implements MovieInfoEventStream {
+
+    private static final Set<OperationType> WATCHED_OPERATIONS =
+            EnumSet.of(OperationType.INSERT, OperationType.UPDATE, OperationType.REPLACE, OperationType.DELETE);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final SubscriberBuffer subscriberBuffer;
+
+    /**
+     * Um único cursor de change stream é compartilhado por todos os subscribers
+     * sem resumeToken. Se o cursor falhar ele é reaberto a partir do último
+     * evento recebido.
+     */
+    private final Flux<MovieInfoEvent> sharedChanges;
+
+    private final AtomicReference<String> lastResumeToken = new AtomicReference<>();
+
+    @Autowired
+    public ChangeStreamMovieInfoEventStream(final ReactiveMongoTemplate reactiveMongoTemplate,
+                                            final MovieInfoStreamProperties properties,
+                                            final MeterRegistry meterRegistry) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.subscriberBuffer = new SubscriberBuffer(properties, meterRegistry);
+        this.sharedChanges = Flux.defer(() -> changes(decode(lastResumeToken.get())))
+                .doOnNext(event -> lastResumeToken.set(event.getResumeToken()))
+                .doOnError(ex -> log.warn("MovieInfo change stream failed, reopening: {}", ex.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .doOnCancel(() -> lastResumeToken.set(null))
+                .share();
+    }
+
+    @Override
+    public void publish(final MovieInfoEvent movieInfoEvent) {
+        // as escritas chegam pelo change stream
+    }
+
+    @Override
+    public void publishAll(final List<MovieInfoEvent> movieInfoEvents) {
+        // as escritas chegam pelo change stream
+    }
+
+    /**
+     * O token do cliente é decodificado antes de abrir o cursor, então um
+     * token inválido vira erro da requisição e não do change stream.
+     */
+    @Override
+    public Flux<MovieInfoEvent> subscribe(final String resumeToken) {
+
+        return subscriberBuffer.apply(resumeToken == null ? sharedChanges : changes(decode(resumeToken)));
+    }
+
+    private Flux<MovieInfoEvent> changes(final BsonDocument resumeToken) {
+
+        return reactiveMongoTemplate.changeStream(MovieInfo.class)
+                .withOptions(options -> {
+                    options.fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+                    if (resumeToken != null) {
+                        options.resumeAfter(resumeToken);
+                    }
+                })
+                .watchCollection(MovieInfo.class)
+                .listen()
+                .filter(event -> WATCHED_OPERATIONS.contains(event.getOperationType()))
+                .map(this::toMovieInfoEvent);
+    }
+
+    private MovieInfoEvent toMovieInfoEvent(final ChangeStreamEvent<MovieInfo> event) {
+
+        final MovieInfoEvent.OperationType operationType;
+        switch (event.getOperationType()) {
+            case INSERT:
+                operationType = MovieInfoEvent.OperationType.INSERT;
+                break;
+            case DELETE:
+                operationType = MovieInfoEvent.OperationType.DELETE;
+                break;
+            default:
+                operationType = MovieInfoEvent.OperationType.UPDATE;
+        }
+
+        return MovieInfoEvent.builder()
+                .id(toId(event.getRaw().getDocumentKey().get("_id")))
+                .operationType(operationType)
+                .movieInfo(event.getBody())
+                .resumeToken(encode(event.getResumeToken()))
+                .build();
+    }
+
+    private static String toId(final BsonValue id) {
+
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private static String encode(final BsonValue resumeToken) {
+
+        return Base64.getUrlEncoder()
+                .encodeToString(resumeToken.asDocument().toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BsonDocument decode(final String resumeToken) {
+
+        if (resumeToken == null) {
+            return null;
+        }
+
+        try {
+            return BsonDocument.parse(new String(Base64.getUrlDecoder().decode(resumeToken), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException | JsonParseException | BSONException ex) {
+            throw new InvalidResumeTokenException("movieInfo.resumeToken is not valid", ex);
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.reactivespring.stream;
+
+import com.reactivespring.domain.MovieInfoEvent;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public interface MovieInfoEventStream {
+
+    /**
+     * Publica uma escrita feita por esta instância. Implementações que leem as
+     * escritas diretamente do banco podem ignorar a chamada.
+     */
+    void publish(MovieInfoEvent movieInfoEvent);
+
+    /**
+     * Publica um lote inteiro de uma vez, usado pela ingestão em massa.
+     */
+    void publishAll(List<MovieInfoEvent> movieInfoEvents);
+
+    /**
+     * Quando resumeToken é informado, apenas os eventos posteriores ao evento
+     * que carregava aquele token são enviados. Um token que não foi gerado
+     * pelo stream é rejeitado na hora com InvalidResumeTokenException.
+     */
+    Flux<MovieInfoEvent> subscribe(String resumeToken);
+
+}
@@ -0,0 +1,104 @@
+package com.reactivespring.stream;
+
+import com.reactivespring.config.MovieInfoStreamProperties;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.exception.InvalidResumeTokenException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+
+/**
+ * Stream mantido em memória, alimentado apenas pelas escritas feitas nesta
+ * instância. Útil quando o MongoDB não roda como replica set e portanto não
+ * suporta change streams.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "movies-info.stream", name = "source", havingValue = "sink")
+public class ReplayMovieInfoEventStream implements MovieInfoEventStream {
+
+    /**
+     * Diferente do replay all, o replay limitado mantém apenas os últimos
+     * historySize elementos publicados (e, se configurado, apenas os mais novos
+     * que historyMaxAge), mantendo o uso de memória constante.
+     */
+    private final Sinks.Many<MovieInfoEvent> movieInfoSink;
+
+    private final SubscriberBuffer subscriberBuffer;
+
+    private final MeterRegistry meterRegistry;
+
+    private long sequence;
+
+    @Autowired
+    public ReplayMovieInfoEventStream(final MovieInfoStreamProperties properties,
+                                      final MeterRegistry meterRegistry) {
+        this.movieInfoSink = properties.getHistoryMaxAge() != null
+                ? Sinks.many().replay().limit(properties.getHistorySize(), properties.getHistoryMaxAge())
+                : Sinks.many().replay().limit(properties.getHistorySize());
+        this.subscriberBuffer = new SubscriberBuffer(properties, meterRegistry);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * O resumeToken de cada evento é a sua sequência de publicação.
+     */
+    @Override
+    public synchronized void publish(final MovieInfoEvent movieInfoEvent) {
+
+        final MovieInfoEvent sequenced = movieInfoEvent.toBuilder()
+                .resumeToken(String.valueOf(++sequence))
+                .build();
+
+        final Sinks.EmitResult result = movieInfoSink.tryEmitNext(sequenced);
+
+        if (result.isFailure()) {
+            log.warn("MovieInfo {} could not be published to stream: {}", movieInfoEvent.getId(), result);
+            meterRegistry.counter("movies-info.stream.emissions.failed", "result", result.name())
+                    .increment();
+        }
+    }
+
+    /**
+     * O lote inteiro é publicado dentro de um único lock, então os eventos de
+     * um lote nunca são intercalados com os de outras requisições.
+     */
+    @Override
+    public synchronized void publishAll(final List<MovieInfoEvent> movieInfoEvents) {
+
+        movieInfoEvents.forEach(this::publish);
+    }
+
+    /**
+     * Caso o evento do resumeToken já tenha sido removido do histórico, todo o
+     * buffer de replay é enviado.
+     */
+    @Override
+    public Flux<MovieInfoEvent> subscribe(final String resumeToken) {
+
+        Flux<MovieInfoEvent> flux = movieInfoSink.asFlux();
+
+        if (resumeToken != null) {
+            final long lastSeenSequence = parseSequence(resumeToken);
+            flux = flux.filter(event -> Long.parseLong(event.getResumeToken()) > lastSeenSequence);
+        }
+
+        return subscriberBuffer.apply(flux);
+    }
+
+    private static long parseSequence(final String resumeToken) {
+
+        try {
+            return Long.parseLong(resumeToken);
+        } catch (NumberFormatException ex) {
+            throw new InvalidResumeTokenException("movieInfo.resumeToken is not valid", ex);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.reactivespring.stream;
+
+import com.reactivespring.config.MovieInfoStreamProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cada subscriber consome através de uma fila própria e limitada, assim um
+ * cliente lento nunca atrasa o publisher nem os demais subscribers, e o
+ * excesso é tratado de acordo com a overflowPolicy configurada.
+ */
+class SubscriberBuffer {
+
+    private final int subscriberBufferSize;
+
+    private final BufferOverflowStrategy overflowStrategy;
+
+    private final Counter droppedCounter;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    SubscriberBuffer(final MovieInfoStreamProperties properties, final MeterRegistry meterRegistry) {
+        this.subscriberBufferSize = properties.getSubscriberBufferSize();
+        this.overflowStrategy = toBufferOverflowStrategy(properties.getOverflowPolicy());
+        this.droppedCounter = Counter.builder("movies-info.stream.dropped")
+                .description("MovieInfo descartados por subscribers lentos")
+                .tag("policy", properties.getOverflowPolicy().name())
+                .register(meterRegistry);
+
+        meterRegistry.gauge("movies-info.stream.subscribers", subscribers);
+    }
+
+    <T> Flux<T> apply(final Flux<T> flux) {
+
+        return flux.onBackpressureBuffer(subscriberBufferSize, dropped -> droppedCounter.increment(), overflowStrategy)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signalType -> subscribers.decrementAndGet());
+    }
+
+    private static BufferOverflowStrategy toBufferOverflowStrategy(final MovieInfoStreamProperties.OverflowPolicy policy) {
+
+        switch (policy) {
+            case DROP_NEWEST:
+                return BufferOverflowStrategy.DROP_LATEST;
+            case DISCONNECT:
+                return BufferOverflowStrategy.ERROR;
+            default:
+                return BufferOverflowStrategy.DROP_OLDEST;
+        }
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.reactivespring.controller;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBulkResult;
+import com.reactivespring.domain.MovieInfoEvent;
 import com.reactivespring.repository.MovieInfoRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,9 +10,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.FluxExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -81,6 +86,87 @@ class MoviesInfoControllerTest {
                 });
     }
 
+    @Test
+    void addMovieInfo_ignoresVersion() {
+
+        final MovieInfo movieInfo = MovieInfo.builder()
+                .title("Batman Begins1")
+                .year(2005)
+                .cast(List.of("Christian Bale", "Michael Cane"))
+                .releasedAt(LocalDate.parse("2005-06-15"))
+                .version(5L)
+                .build();
+
+        webTestClient.post()
+                .uri(MOVIES_INFO_URL)
+                .bodyValue(movieInfo)
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody(MovieInfo.class)
+                .consumeWith(movieInfoEntityExchangeResult -> {
+                    final MovieInfo responseBody = movieInfoEntityExchangeResult.getResponseBody();
+                    assert responseBody != null;
+                    assertNotNull(responseBody.getId());
+                    assertEquals(0L, responseBody.getVersion());
+                });
+    }
+
+    @Test
+    void addMovieInfo_existingId() {
+
+        final MovieInfo movieInfo = MovieInfo.builder()
+                .id("abc")
+                .title("Dark Knight Rises (Remastered)")
+                .year(2012)
+                .cast(List.of("Christian Bale", "Tom Hardy"))
+                .releasedAt(LocalDate.parse("2012-07-20"))
+                .build();
+
+        webTestClient.post()
+                .uri(MOVIES_INFO_URL)
+                .bodyValue(movieInfo)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT);
+
+        // o documento existente não é sobrescrito
+        StepVerifier.create(movieInfoRepository.findById("abc").map(MovieInfo::getTitle))
+                .expectNext("Dark Knight Rises")
+                .verifyComplete();
+    }
+
+    @Test
+    void addMovieInfos() {
+
+        var body = "{\"title\":\"Batman Begins1\",\"year\":2005}\n"
+                + "{\"id\":\"abc\",\"title\":\"Dark Knight Rises\",\"year\":2012}\n"
+                + "{\"year\":-2005}\n";
+
+        webTestClient.post()
+                .uri(MOVIES_INFO_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfoBulkResult.class)
+                .consumeWith(result -> {
+                    var results = result.getResponseBody();
+                    assert results != null;
+                    assertEquals(MovieInfoBulkResult.Status.CREATED, results.get(0).getStatus());
+                    assertNotNull(results.get(0).getId());
+                    // "abc" já existe
+                    assertEquals(MovieInfoBulkResult.Status.FAILED, results.get(1).getStatus());
+                    assertEquals(MovieInfoBulkResult.Status.INVALID, results.get(2).getStatus());
+                });
+
+        StepVerifier.create(movieInfoRepository.count())
+                .expectNext(4L)
+                .verifyComplete();
+    }
+
     @Test
     void getAllMovieInfo() {
 
@@ -93,6 +179,100 @@ class MoviesInfoControllerTest {
                 .hasSize(3);
     }
 
+    @Test
+    void getAllMovieInfo_defaultPageSize() {
+
+        movieInfoRepository.saveAll(Flux.range(0, 100)
+                        .map(i -> new MovieInfo(null, "Movie " + i, 2000, List.of("Cast " + i), LocalDate.parse("2000-01-01"))))
+                .blockLast();
+
+        // sem size nem pageToken a resposta para na primeira página de 100
+        var nextPageToken = webTestClient.get()
+                .uri(MOVIES_INFO_URL)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(100)
+                .returnResult()
+                .getResponseHeaders()
+                .getFirst(MoviesInfoController.NEXT_PAGE_TOKEN_HEADER);
+
+        assertNotNull(nextPageToken);
+
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "?pageToken={pageToken}", nextPageToken)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(3);
+    }
+
+    @Test
+    void getAllMovieInfo_pagination() {
+
+        var nextPageToken = webTestClient.get()
+                .uri(MOVIES_INFO_URL + "?size=2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(2)
+                .returnResult()
+                .getResponseHeaders()
+                .getFirst(MoviesInfoController.NEXT_PAGE_TOKEN_HEADER);
+
+        assertNotNull(nextPageToken);
+
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "?size=2&pageToken={pageToken}", nextPageToken)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .doesNotExist(MoviesInfoController.NEXT_PAGE_TOKEN_HEADER)
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getAllMovieInfo_ndjson() {
+
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "?size=1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(3);
+    }
+
+    @Test
+    void getAllMovieInfo_fields() {
+
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "?year=2012&fields=title,year")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo("abc")
+                .jsonPath("$[0].title").isEqualTo("Dark Knight Rises")
+                .jsonPath("$[0].cast").doesNotExist();
+    }
+
+    @Test
+    void getAllMovieInfo_invalidFields() {
+
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "?fields=title,budget")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
     @Test
     void getAllMovieInfo_stream() {
 
@@ -121,13 +301,14 @@ class MoviesInfoControllerTest {
                 .exchange()
                 .expectStatus()
                 .is2xxSuccessful()
-                .returnResult(MovieInfo.class)
+                .returnResult(MovieInfoEvent.class)
                 .getResponseBody();
 
         StepVerifier.create(movieInfoStreamFlux)
-                .assertNext(movieInfo1 -> {
-                    assert movieInfo1 != null;
-                    assert movieInfo1.getId() != null;
+                .assertNext(movieInfoEvent -> {
+                    assert movieInfoEvent != null;
+                    assert movieInfoEvent.getId() != null;
+                    assertEquals(MovieInfoEvent.OperationType.INSERT, movieInfoEvent.getOperationType());
                 })
                 .thenCancel()
                 .verify();
@@ -241,6 +422,27 @@ class MoviesInfoControllerTest {
                 .isNotFound();
     }
 
+    @Test
+    void updateMovieInfo_outdatedVersion() {
+
+        var movieId = "abc";
+
+        final MovieInfo movieInfo = MovieInfo.builder()
+                .title("Dark Knight Rises1")
+                .year(2005)
+                .cast(List.of("Christian Bale", "Michael Cane"))
+                .releasedAt(LocalDate.parse("2005-06-15"))
+                .version(5L)
+                .build();
+
+        webTestClient.put()
+                .uri(MOVIES_INFO_URL + "/{id}", movieId)
+                .bodyValue(movieInfo)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+
     @Test
     void deleteMovieInfo() {
         var movieId = "abc";
@@ -0,0 +1,68 @@
+package com.reactivespring.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(MovieInfoIndexes.class)
+class MovieInfoIndexesTest {
+
+    @Autowired
+    private MovieInfoIndexes movieInfoIndexes;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoIndexes.ensureIndexes().blockLast();
+    }
+
+    @Test
+    void findByYear_usesIndex() {
+
+        var query = new Query(Criteria.where("year").is(2005));
+
+        StepVerifier.create(movieInfoIndexes.usesIndex(query))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void findByTitle_usesIndex() {
+
+        var query = new Query(Criteria.where("title").is("Batman Begins"));
+
+        StepVerifier.create(movieInfoIndexes.usesIndex(query))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void findPageByYear_usesIndex() {
+
+        var query = new Query(Criteria.where("year").is(2005))
+                .with(Sort.by("_id"));
+
+        StepVerifier.create(movieInfoIndexes.usesIndex(query))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void findByCast_collectionScan() {
+
+        var query = new Query(Criteria.where("cast").is("Christian Bale"));
+
+        StepVerifier.create(movieInfoIndexes.usesIndex(query))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+}
@@ -11,6 +11,7 @@ import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -66,6 +67,48 @@ class MovieInfoRepositoryTest {
                 .verifyComplete();
     }
 
+    @Test
+    void findPage() {
+
+        var firstPage = movieInfoRepository.findPage(null, null, 2, null).collectList().block();
+
+        assertNotNull(firstPage);
+        assertEquals(2, firstPage.size());
+        // ids string são ordenados antes dos ObjectIds
+        assertEquals("abc", firstPage.get(0).getId());
+
+        var secondPage = movieInfoRepository.findPage(null, firstPage.get(1).getId(), 2, null);
+
+        StepVerifier.create(secondPage)
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void findPage_afterStringId() {
+
+        var moviesInfoFlux = movieInfoRepository.findPage(null, "abc", 10, null);
+
+        StepVerifier.create(moviesInfoFlux)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void findPage_fields() {
+
+        var moviesInfoFlux = movieInfoRepository.findPage(2005, null, 10, Set.of("title"));
+
+        StepVerifier.create(moviesInfoFlux)
+                .assertNext(movieInfo -> {
+                    assertNotNull(movieInfo.getId());
+                    assertEquals("Batman Begins", movieInfo.getTitle());
+                    assertNull(movieInfo.getYear());
+                    assertNull(movieInfo.getCast());
+                })
+                .verifyComplete();
+    }
+
     @Test
     void findById() {
 
@@ -124,6 +167,36 @@ class MovieInfoRepositoryTest {
 
     }
 
+    @Test
+    void update() {
+
+        var movieInfo = new MovieInfo(null, "Dark Knight Rises1",
+                2021, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+
+        StepVerifier.create(movieInfoRepository.update("abc", movieInfo))
+                .assertNext(movieInfo1 -> {
+                    assertEquals("abc", movieInfo1.getId());
+                    assertEquals("Dark Knight Rises1", movieInfo1.getTitle());
+                    assertEquals(2021, movieInfo1.getYear());
+                    assertEquals(1L, movieInfo1.getVersion());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void update_outdatedVersion() {
+
+        var movieInfo = new MovieInfo("abc", "Dark Knight Rises1",
+                2021, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"), 5L);
+
+        StepVerifier.create(movieInfoRepository.update("abc", movieInfo))
+                .verifyComplete();
+
+        StepVerifier.create(movieInfoRepository.findById("abc"))
+                .assertNext(movieInfo1 -> assertEquals("Dark Knight Rises", movieInfo1.getTitle()))
+                .verifyComplete();
+    }
+
     @Test
     void deleteMovieInfo() {
 
@@ -137,4 +210,16 @@ class MovieInfoRepositoryTest {
 
     }
 
+    @Test
+    void removeMovieInfo() {
+
+        StepVerifier.create(movieInfoRepository.remove("abc").map(MovieInfo::getTitle))
+                .expectNext("Dark Knight Rises")
+                .verifyComplete();
+
+        // o segundo remove não encontra nada
+        StepVerifier.create(movieInfoRepository.remove("abc"))
+                .verifyComplete();
+    }
+
 }
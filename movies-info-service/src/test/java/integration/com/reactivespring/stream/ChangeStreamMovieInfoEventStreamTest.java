@@ -0,0 +1,125 @@
+package com.reactivespring.stream;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.reactivespring.config.MovieInfoStreamProperties;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.repository.MovieInfoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@ActiveProfiles("replset")
+class ChangeStreamMovieInfoEventStreamTest {
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private MovieInfoRepository movieInfoRepository;
+
+    private ChangeStreamMovieInfoEventStream movieInfoEventStream;
+
+    @BeforeEach
+    void setUp() {
+        initiateReplicaSet();
+
+        movieInfoEventStream = new ChangeStreamMovieInfoEventStream(reactiveMongoTemplate,
+                new MovieInfoStreamProperties(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll().block();
+    }
+
+    @Test
+    void subscribe_insertUpdateDelete() {
+
+        var movieInfo = new MovieInfo("abc", "Dark Knight Rises",
+                2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+
+        var updatedMovieInfo = new MovieInfo("abc", "Dark Knight Rises",
+                2021, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+
+        StepVerifier.create(movieInfoEventStream.subscribe(null))
+                .thenAwait(Duration.ofMillis(500))
+                .then(() -> movieInfoRepository.save(movieInfo)
+                        .then(movieInfoRepository.update("abc", updatedMovieInfo))
+                        .then(movieInfoRepository.deleteById("abc"))
+                        .block())
+                .assertNext(event -> {
+                    assertEquals(MovieInfoEvent.OperationType.INSERT, event.getOperationType());
+                    assertEquals("abc", event.getId());
+                    assertNotNull(event.getResumeToken());
+                })
+                .assertNext(event -> {
+                    assertEquals(MovieInfoEvent.OperationType.UPDATE, event.getOperationType());
+                    assertEquals(2021, event.getMovieInfo().getYear());
+                })
+                .assertNext(event -> {
+                    assertEquals(MovieInfoEvent.OperationType.DELETE, event.getOperationType());
+                    assertEquals("abc", event.getId());
+                    assertNull(event.getMovieInfo());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void subscribe_resumeToken() {
+
+        var movieInfo = new MovieInfo("abc", "Dark Knight Rises",
+                2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+
+        var changes = movieInfoEventStream.subscribe(null).take(2).collectList();
+        var saves = Mono.delay(Duration.ofMillis(500))
+                .then(movieInfoRepository.save(movieInfo))
+                .then(movieInfoRepository.deleteById("abc"));
+
+        var events = Mono.zip(changes, saves.thenReturn(true))
+                .map(Tuple2::getT1)
+                .block(Duration.ofSeconds(10));
+
+        assertNotNull(events);
+
+        // um cliente que reconecta depois do insert recebe apenas o delete
+        StepVerifier.create(movieInfoEventStream.subscribe(events.get(0).getResumeToken()))
+                .assertNext(event -> assertEquals(MovieInfoEvent.OperationType.DELETE, event.getOperationType()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    private void initiateReplicaSet() {
+        var admin = mongoClient.getDatabase("admin");
+
+        Mono.from(admin.runCommand(new Document("replSetInitiate", new Document())))
+                .onErrorResume(ex -> Mono.empty())
+                .block();
+
+        Mono.from(admin.runCommand(new Document("isMaster", 1)))
+                .filter(result -> result.getBoolean("ismaster", false))
+                .repeatWhenEmpty(50, repeat -> repeat.delayElements(Duration.ofMillis(200)))
+                .block();
+    }
+
+}
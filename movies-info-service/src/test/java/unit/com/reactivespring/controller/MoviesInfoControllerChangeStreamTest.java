@@ -0,0 +1,62 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.config.MovieInfoStreamProperties;
+import com.reactivespring.service.MovieInfoBulkService;
+import com.reactivespring.service.MovieInfoService;
+import com.reactivespring.stream.ChangeStreamMovieInfoEventStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@WebFluxTest(controllers = MoviesInfoController.class, properties = "movies-info.stream.source=change-stream")
+@AutoConfigureWebTestClient
+@EnableConfigurationProperties(MovieInfoStreamProperties.class)
+@Import({ChangeStreamMovieInfoEventStream.class, SimpleMeterRegistry.class})
+class MoviesInfoControllerChangeStreamTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private MovieInfoService movieInfoServiceMock;
+
+    @MockBean
+    private MovieInfoBulkService movieInfoBulkServiceMock;
+
+    @MockBean
+    private ReactiveMongoTemplate reactiveMongoTemplateMock;
+
+    /**
+     * Base64 inválido, Base64 de algo que não é JSON e JSON que não é um
+     * documento.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"%%%", "bm90LWpzb24", "WzEsMl0"})
+    void streamMovieInfo_invalidResumeToken(final String resumeToken) {
+
+        webTestClient
+                .get()
+                .uri("/v1/movies-info/stream?resumeToken={resumeToken}", resumeToken)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("movieInfo.resumeToken is not valid");
+
+        // o cursor nem chega a ser aberto
+        verifyNoInteractions(reactiveMongoTemplateMock);
+    }
+
+}
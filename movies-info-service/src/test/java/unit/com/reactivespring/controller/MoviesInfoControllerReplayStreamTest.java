@@ -0,0 +1,47 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.config.MovieInfoStreamProperties;
+import com.reactivespring.service.MovieInfoBulkService;
+import com.reactivespring.service.MovieInfoService;
+import com.reactivespring.stream.ReplayMovieInfoEventStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@WebFluxTest(controllers = MoviesInfoController.class, properties = "movies-info.stream.source=sink")
+@AutoConfigureWebTestClient
+@EnableConfigurationProperties(MovieInfoStreamProperties.class)
+@Import({ReplayMovieInfoEventStream.class, SimpleMeterRegistry.class})
+class MoviesInfoControllerReplayStreamTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private MovieInfoService movieInfoServiceMock;
+
+    @MockBean
+    private MovieInfoBulkService movieInfoBulkServiceMock;
+
+    @Test
+    void streamMovieInfo_invalidResumeToken() {
+
+        webTestClient
+                .get()
+                .uri("/v1/movies-info/stream?resumeToken={resumeToken}", "not-a-sequence")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("movieInfo.resumeToken is not valid");
+    }
+
+}
@@ -1,21 +1,35 @@
 package com.reactivespring.controller;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBulkResult;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.domain.MovieInfoPage;
+import com.reactivespring.service.MovieInfoBulkService;
 import com.reactivespring.service.MovieInfoService;
+import com.reactivespring.stream.MovieInfoEventStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(MoviesInfoController.class)
@@ -28,6 +42,12 @@ public class MoviesInfoControllerUnitTest {
     @MockBean
     private MovieInfoService movieInfoServiceMock;
 
+    @MockBean
+    private MovieInfoBulkService movieInfoBulkServiceMock;
+
+    @MockBean
+    private MovieInfoEventStream movieInfoEventStreamMock;
+
     private static final String MOVIES_INFO_URL = "/v1/movies-info";
 
     @Test
@@ -42,17 +62,82 @@ public class MoviesInfoControllerUnitTest {
                         2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"))
         );
 
-        when(movieInfoServiceMock.getAllMovieInfo()).thenReturn(Flux.fromIterable(movieinfos));
+        when(movieInfoServiceMock.getMovieInfoPage(isNull(), isNull(), eq(100), isNull()))
+                .thenReturn(Mono.just(new MovieInfoPage(movieinfos, null)));
 
         webTestClient.get()
                 .uri(MOVIES_INFO_URL)
                 .exchange()
                 .expectStatus()
                 .is2xxSuccessful()
+                .expectHeader()
+                .doesNotExist(MoviesInfoController.NEXT_PAGE_TOKEN_HEADER)
                 .expectBodyList(MovieInfo.class)
                 .hasSize(3);
     }
 
+    @Test
+    void getAllMoviesInfo_nextPage() {
+
+        var movieinfos = List.of(
+                new MovieInfo("abc", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"))
+        );
+
+        when(movieInfoServiceMock.getMovieInfoPage(isNull(), eq("token"), eq(1), isNull()))
+                .thenReturn(Mono.just(new MovieInfoPage(movieinfos, "nextToken")));
+
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "?pageToken=token&size=1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .valueEquals(MoviesInfoController.NEXT_PAGE_TOKEN_HEADER, "nextToken")
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getAllMoviesInfo_fields() {
+
+        var movieinfos = List.of(MovieInfo.builder().id("abc").title("Dark Knight Rises").build());
+
+        when(movieInfoServiceMock.getMovieInfoPage(isNull(), isNull(), eq(100), eq(Set.of("id", "title"))))
+                .thenReturn(Mono.just(new MovieInfoPage(movieinfos, null)));
+
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "?fields=id,title")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$[0].title").isEqualTo("Dark Knight Rises")
+                .jsonPath("$[0].cast").doesNotExist();
+    }
+
+    @Test
+    void streamAllMoviesInfo() {
+
+        var movieinfos = List.of(
+                new MovieInfo(null, "Batman Begins",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo("abc", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"))
+        );
+
+        when(movieInfoServiceMock.streamAllMovieInfo(isNull(), eq(100), isNull())).thenReturn(Flux.fromIterable(movieinfos));
+
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(2);
+    }
+
     @Test
     void getMovieInfoById() {
 
@@ -74,6 +159,69 @@ public class MoviesInfoControllerUnitTest {
                 });
     }
 
+    @Test
+    void getMovieInfoById_notModified() {
+
+        var movieId = "abc";
+
+        when(movieInfoServiceMock.getMovieInfoById(isA(String.class)))
+                .thenReturn(Mono.just(new MovieInfo("abc", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"), 3L)));
+
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "/{id}", movieId)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, "W/\"abc-3\"");
+
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "/{id}", movieId)
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"abc-3\"")
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody()
+                .isEmpty();
+
+        // comparação fraca: o mesmo valor sem o W/ também vale
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "/{id}", movieId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"abc-3\"")
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+    }
+
+    @Test
+    void getAllMoviesInfo_notModified() {
+
+        var movieinfos = List.of(new MovieInfo("abc", "Dark Knight Rises",
+                2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"), 3L));
+
+        when(movieInfoServiceMock.getMovieInfoPage(isNull(), isNull(), eq(100), isNull()))
+                .thenReturn(Mono.just(new MovieInfoPage(movieinfos, null)));
+
+        var eTag = webTestClient.get()
+                .uri(MOVIES_INFO_URL)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(MovieInfo.class)
+                .getResponseHeaders()
+                .getETag();
+
+        assertNotNull(eTag);
+
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+    }
+
     @Test
     void addMovieInfo() {
 
@@ -111,6 +259,30 @@ public class MoviesInfoControllerUnitTest {
                 });
     }
 
+    @Test
+    void addMovieInfo_duplicateId() {
+
+        final MovieInfo movieInfo = MovieInfo.builder()
+                .id("abc")
+                .title("Batman Begins1")
+                .year(2005)
+                .cast(List.of("Christian Bale", "Michael Cane"))
+                .releasedAt(LocalDate.parse("2005-06-15"))
+                .build();
+
+        when(movieInfoServiceMock.addMovieInfo(isA(MovieInfo.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key error")));
+
+        webTestClient.post()
+                .uri(MOVIES_INFO_URL)
+                .bodyValue(movieInfo)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT)
+                .expectBody(String.class)
+                .isEqualTo("movieInfo.id already exists");
+    }
+
     @Test
     void addMovieInfo_validation() {
 
@@ -148,6 +320,27 @@ public class MoviesInfoControllerUnitTest {
                 });
     }
 
+    @Test
+    void addMovieInfos() {
+
+        when(movieInfoBulkServiceMock.addMovieInfos(isA(Flux.class))).thenReturn(Flux.just(
+                new MovieInfoBulkResult(0, "mockId", MovieInfoBulkResult.Status.CREATED, null),
+                new MovieInfoBulkResult(1, null, MovieInfoBulkResult.Status.INVALID, "movieInfo.name must be present")));
+
+        var body = "{\"title\":\"Batman Begins1\",\"year\":2005}\n{\"year\":2005}\n";
+
+        webTestClient.post()
+                .uri(MOVIES_INFO_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfoBulkResult.class)
+                .hasSize(2);
+    }
+
     @Test
     void updateMovieInfo() {
 
@@ -192,7 +385,8 @@ public class MoviesInfoControllerUnitTest {
     void deleteMovieInfo() {
         var movieId = "abc";
 
-        when(movieInfoServiceMock.deleteMovieInfo(isA(String.class))).thenReturn(Mono.empty());
+        when(movieInfoServiceMock.deleteMovieInfo(isA(String.class))).thenReturn(Mono.just(
+                new MovieInfo(movieId, "Dark Knight Rises", 2012, List.of("Christian Bale"), LocalDate.parse("2012-07-20"))));
 
         webTestClient.delete()
                 .uri(MOVIES_INFO_URL + "/{id}", movieId)
@@ -200,6 +394,24 @@ public class MoviesInfoControllerUnitTest {
                 .expectStatus()
                 .isNoContent()
                 .expectBody(Void.class);
+
+        verify(movieInfoEventStreamMock).publish(MovieInfoEvent.deleted(movieId));
+    }
+
+    @Test
+    void deleteMovieInfo_missing() {
+
+        when(movieInfoServiceMock.deleteMovieInfo(isA(String.class))).thenReturn(Mono.empty());
+
+        webTestClient.delete()
+                .uri(MOVIES_INFO_URL + "/{id}", "def")
+                .exchange()
+                .expectStatus()
+                .isNoContent()
+                .expectBody(Void.class);
+
+        // nada foi removido, então nada é publicado
+        verifyNoInteractions(movieInfoEventStreamMock);
     }
 
 }
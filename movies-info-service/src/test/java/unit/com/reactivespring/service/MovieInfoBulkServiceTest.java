@@ -0,0 +1,78 @@
+package com.reactivespring.service;
+
+import com.reactivespring.config.MovieInfoBulkProperties;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBulkResult;
+import com.reactivespring.repository.MovieInfoRepository;
+import com.reactivespring.stream.MovieInfoEventStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.validation.Validation;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class MovieInfoBulkServiceTest {
+
+    private final MovieInfoRepository movieInfoRepositoryMock = mock(MovieInfoRepository.class);
+
+    private final MovieInfoEventStream movieInfoEventStreamMock = mock(MovieInfoEventStream.class);
+
+    private MovieInfoBulkService movieInfoBulkService;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new MovieInfoBulkProperties();
+        properties.setBatchSize(2);
+
+        movieInfoBulkService = new MovieInfoBulkService(movieInfoRepositoryMock, movieInfoEventStreamMock,
+                Validation.buildDefaultValidatorFactory().getValidator(), properties);
+    }
+
+    @Test
+    void addMovieInfos() {
+
+        when(movieInfoRepositoryMock.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<MovieInfo> movieInfos = invocation.getArgument(0);
+            movieInfos.forEach(movieInfo -> movieInfo.setId("id-" + movieInfo.getTitle()));
+            // o segundo MovieInfo válido do lote falha, por exemplo por id duplicado
+            return Mono.just(movieInfos.size() > 1 ? Map.of(1, "duplicate key") : Map.of());
+        });
+
+        var movieInfos = Flux.just(
+                new MovieInfo(null, "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15")),
+                new MovieInfo(null, "The Dark Knight", 2008, List.of("Christian Bale"), LocalDate.parse("2008-07-18")),
+                new MovieInfo(null, "", -2012, List.of("Christian Bale"), LocalDate.parse("2012-07-20")));
+
+        StepVerifier.create(movieInfoBulkService.addMovieInfos(movieInfos))
+                .assertNext(result -> {
+                    assertEquals(0, result.getIndex());
+                    assertEquals(MovieInfoBulkResult.Status.CREATED, result.getStatus());
+                    assertEquals("id-Batman Begins", result.getId());
+                })
+                .assertNext(result -> {
+                    assertEquals(1, result.getIndex());
+                    assertEquals(MovieInfoBulkResult.Status.FAILED, result.getStatus());
+                    assertEquals("duplicate key", result.getError());
+                })
+                .assertNext(result -> {
+                    assertEquals(2, result.getIndex());
+                    assertEquals(MovieInfoBulkResult.Status.INVALID, result.getStatus());
+                    assertEquals("movieInfo.name must be present, movieInfo.year must be a positive value", result.getError());
+                })
+                .verifyComplete();
+
+        // o lote só com o MovieInfo inválido não chega ao MongoDB
+        verify(movieInfoRepositoryMock, times(1)).insertUnordered(anyList());
+        verify(movieInfoEventStreamMock, times(1)).publishAll(anyList());
+    }
+
+}
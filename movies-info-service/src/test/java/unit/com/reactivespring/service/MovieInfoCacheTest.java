@@ -0,0 +1,74 @@
+package com.reactivespring.service;
+
+import com.reactivespring.config.MovieInfoCacheProperties;
+import com.reactivespring.domain.MovieInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovieInfoCacheTest {
+
+    private MovieInfoCache movieInfoCache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<String, Mono<MovieInfo>> loader = movieId -> {
+        loads.incrementAndGet();
+        return Mono.just(new MovieInfo(movieId, "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")))
+                .delayElement(Duration.ofMillis(100));
+    };
+
+    @BeforeEach
+    void setUp() {
+        movieInfoCache = new MovieInfoCache(new MovieInfoCacheProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void get_concurrentMissesShareOneLoad() {
+
+        var first = movieInfoCache.get("abc", loader);
+        var second = movieInfoCache.get("abc", loader);
+
+        StepVerifier.create(Mono.zip(first, second))
+                .assertNext(tuple -> assertEquals(tuple.getT1(), tuple.getT2()))
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidate() {
+
+        movieInfoCache.get("abc", loader).block();
+        movieInfoCache.invalidate("abc");
+        movieInfoCache.get("abc", loader).block();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_notFoundIsNotCached() {
+
+        StepVerifier.create(movieInfoCache.get("def", movieId -> {
+                    loads.incrementAndGet();
+                    return Mono.empty();
+                }))
+                .verifyComplete();
+
+        movieInfoCache.get("def", loader).block();
+
+        assertEquals(2, loads.get());
+    }
+
+}
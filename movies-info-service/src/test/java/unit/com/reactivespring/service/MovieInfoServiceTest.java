@@ -0,0 +1,65 @@
+package com.reactivespring.service;
+
+import com.reactivespring.config.MovieInfoCacheProperties;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.repository.MovieInfoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MovieInfoServiceTest {
+
+    private final MovieInfoRepository movieInfoRepositoryMock = mock(MovieInfoRepository.class);
+
+    private final MovieInfoService movieInfoService = new MovieInfoService(movieInfoRepositoryMock,
+            new MovieInfoCache(new MovieInfoCacheProperties(), new SimpleMeterRegistry()));
+
+    @Test
+    void getMovieInfoPage_fullPageHasNextPageToken() {
+
+        var movieInfos = Flux.range(0, 100)
+                .map(i -> new MovieInfo("id-" + i, "Movie " + i, 2000, List.of("Cast"), LocalDate.parse("2000-01-01")));
+        when(movieInfoRepositoryMock.findPage(null, null, 100, null)).thenReturn(movieInfos);
+
+        StepVerifier.create(movieInfoService.getMovieInfoPage(null, null, 100, null))
+                .assertNext(page -> {
+                    assertEquals(100, page.getContent().size());
+                    assertNotNull(page.getNextPageToken());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void addMovieInfo_insertsIgnoringVersion() {
+
+        when(movieInfoRepositoryMock.insert(any(MovieInfo.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        var movieInfo = new MovieInfo("abc", "Dark Knight Rises", 2012,
+                List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"), 5L);
+
+        StepVerifier.create(movieInfoService.addMovieInfo(movieInfo).map(MovieInfo::getId))
+                .expectNext("abc")
+                .verifyComplete();
+
+        // insert e não save: um id existente não é sobrescrito e a version do corpo não vira checagem
+        var inserted = ArgumentCaptor.forClass(MovieInfo.class);
+        verify(movieInfoRepositoryMock).insert(inserted.capture());
+        verify(movieInfoRepositoryMock, never()).save(any(MovieInfo.class));
+        assertNull(inserted.getValue().getVersion());
+        assertEquals("abc", inserted.getValue().getId());
+    }
+
+}
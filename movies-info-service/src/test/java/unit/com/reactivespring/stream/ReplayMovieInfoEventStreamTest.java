@@ -0,0 +1,113 @@
+package com.reactivespring.stream;
+
+import com.reactivespring.config.MovieInfoStreamProperties;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Exceptions;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplayMovieInfoEventStreamTest {
+
+    private ReplayMovieInfoEventStream movieInfoEventStream;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoEventStream = newStream(2, 2, MovieInfoStreamProperties.OverflowPolicy.DROP_OLDEST);
+    }
+
+    @Test
+    void subscribe_replaysOnlyHistorySize() {
+
+        movieInfoEventStream.publish(inserted("a"));
+        movieInfoEventStream.publish(inserted("b"));
+        movieInfoEventStream.publish(inserted("c"));
+
+        StepVerifier.create(movieInfoEventStream.subscribe(null).map(MovieInfoEvent::getId))
+                .expectNext("b", "c")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void subscribe_resumesAfterResumeToken() {
+
+        movieInfoEventStream.publish(inserted("a"));
+        movieInfoEventStream.publish(inserted("b"));
+
+        var resumeToken = movieInfoEventStream.subscribe(null).blockFirst().getResumeToken();
+
+        StepVerifier.create(movieInfoEventStream.subscribe(resumeToken).map(MovieInfoEvent::getId))
+                .expectNext("b")
+                .then(() -> movieInfoEventStream.publish(MovieInfoEvent.deleted("a")))
+                .expectNext("a")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void subscribe_evictedResumeToken() {
+
+        movieInfoEventStream.publish(inserted("a"));
+        movieInfoEventStream.publish(inserted("b"));
+        movieInfoEventStream.publish(inserted("c"));
+
+        StepVerifier.create(movieInfoEventStream.subscribe("0").map(MovieInfoEvent::getId))
+                .expectNext("b", "c")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void subscribe_slowSubscriberDropsOldest() {
+
+        movieInfoEventStream = newStream(10, 2, MovieInfoStreamProperties.OverflowPolicy.DROP_OLDEST);
+
+        StepVerifier.create(movieInfoEventStream.subscribe(null).map(MovieInfoEvent::getId), 0)
+                .then(() -> List.of("a", "b", "c", "d").forEach(id -> movieInfoEventStream.publish(inserted(id))))
+                .thenRequest(10)
+                .expectNext("c", "d")
+                .thenCancel()
+                .verify();
+
+        assertEquals(2.0, meterRegistry.get("movies-info.stream.dropped").counter().count());
+    }
+
+    @Test
+    void subscribe_slowSubscriberIsDisconnected() {
+
+        movieInfoEventStream = newStream(10, 2, MovieInfoStreamProperties.OverflowPolicy.DISCONNECT);
+
+        StepVerifier.create(movieInfoEventStream.subscribe(null), 0)
+                .then(() -> List.of("a", "b", "c").forEach(id -> movieInfoEventStream.publish(inserted(id))))
+                .thenRequest(10)
+                .expectNextCount(2)
+                .expectErrorMatches(Exceptions::isOverflow)
+                .verify();
+    }
+
+    private ReplayMovieInfoEventStream newStream(int historySize, int subscriberBufferSize,
+                                                 MovieInfoStreamProperties.OverflowPolicy overflowPolicy) {
+        var properties = new MovieInfoStreamProperties();
+        properties.setHistorySize(historySize);
+        properties.setHistoryMaxAge(null);
+        properties.setSubscriberBufferSize(subscriberBufferSize);
+        properties.setOverflowPolicy(overflowPolicy);
+
+        meterRegistry = new SimpleMeterRegistry();
+        return new ReplayMovieInfoEventStream(properties, meterRegistry);
+    }
+
+    private MovieInfoEvent inserted(String id) {
+        return MovieInfoEvent.inserted(new MovieInfo(id, "Batman Begins", 2005, List.of("Christian Bale"), null));
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.reactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "reviews.bulk")
+public class ReviewBulkProperties {
+
+    /**
+     * Quantidade de reviews enviadas ao MongoDB em cada insertMany.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Quantidade de lotes sendo gravados ao mesmo tempo.
+     */
+    private int concurrency = 4;
+
+}
@@ -0,0 +1,51 @@
+package com.reactivespring.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Agregado das notas de um filme, mantido a cada review criada, alterada ou
+ * removida. O histogram conta as reviews por faixa inteira de nota
+ * ("8" = notas de 8.0 até 8.9).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document
+public class ReviewRatingSummary {
+
+    @Id
+    private Long movieInfoId;
+    private long count;
+    private double sum;
+    private Double min;
+    private Double max;
+    private Map<String, Long> histogram = new HashMap<>();
+    // incrementada a cada nota somada ou retirada, usada para recalcular min e max sem perder escritas
+    @JsonIgnore
+    private long revision;
+
+    public static ReviewRatingSummary empty(final Long movieInfoId) {
+
+        final ReviewRatingSummary summary = new ReviewRatingSummary();
+        summary.setMovieInfoId(movieInfoId);
+        return summary;
+    }
+
+    public static String histogramBucket(final double rating) {
+        return String.valueOf((long) Math.floor(rating));
+    }
+
+    @Transient
+    public Double getAverage() {
+        return count == 0 ? null : sum / count;
+    }
+}
@@ -0,0 +1,48 @@
+package com.reactivespring.exceptionhandler;
+
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.exception.ReviewNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Rotas funcionais não passam por @ControllerAdvice, então as exceções de
+ * review são convertidas em respostas aqui. As demais seguem para o handler
+ * padrão do Spring Boot.
+ */
+@Slf4j
+@Component
+@Order(-2)
+public class GlobalErrorHandler implements ErrorWebExceptionHandler {
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
+
+        final HttpStatus status;
+        if (ex instanceof ReviewDataException) {
+            status = HttpStatus.BAD_REQUEST;
+        } else if (ex instanceof ReviewNotFoundException) {
+            status = HttpStatus.NOT_FOUND;
+        } else {
+            return Mono.error(ex);
+        }
+
+        log.error("Exception caught in GlobalErrorHandler: {}", ex.getMessage(), ex);
+
+        final DataBuffer body = exchange.getResponse()
+                .bufferFactory()
+                .wrap(ex.getMessage().getBytes(StandardCharsets.UTF_8));
+
+        exchange.getResponse().setStatusCode(status);
+        return exchange.getResponse().writeWith(Mono.just(body));
+    }
+
+}
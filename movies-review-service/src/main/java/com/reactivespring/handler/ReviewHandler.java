@@ -0,0 +1,378 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.MovieInfoReviews;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewBulkResult;
+import com.reactivespring.domain.ReviewRatingSummary;
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.exception.ReviewNotFoundException;
+import com.reactivespring.repository.ReviewRatingSummaryRepository;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.service.ReviewBulkService;
+import com.reactivespring.service.ReviewPublisher;
+import com.reactivespring.service.ReviewValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class ReviewHandler {
+
+    public static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static final int MAX_BATCH_MOVIE_INFO_IDS = 500;
+
+    public static final int DEFAULT_BATCH_LIMIT = 10;
+
+    public static final int MAX_BATCH_LIMIT = 100;
+
+    /**
+     * Consultas do batch em andamento ao mesmo tempo.
+     */
+    private static final int BATCH_CONCURRENCY = 8;
+
+    private static final int SUBSCRIBER_BUFFER_SIZE = 256;
+
+    /**
+     * Nome das métricas do Reactor (reactor.flow.duration, reactor.onNext.delay...)
+     * das consultas ao MongoDB; a tag operation separa cada consulta.
+     */
+    private static final String REPOSITORY_METRICS = "reviews.repository";
+
+    private final ReviewReactiveRepository reviewReactiveRepository;
+
+    private final ReviewRatingSummaryRepository reviewRatingSummaryRepository;
+
+    private final ReviewBulkService reviewBulkService;
+
+    private final ReviewValidator reviewValidator;
+
+    private final ReviewPublisher reviewPublisher;
+
+    @Autowired
+    public ReviewHandler(final ReviewReactiveRepository reviewReactiveRepository,
+                         final ReviewRatingSummaryRepository reviewRatingSummaryRepository,
+                         final ReviewBulkService reviewBulkService,
+                         final ReviewValidator reviewValidator,
+                         final ReviewPublisher reviewPublisher) {
+        this.reviewReactiveRepository = reviewReactiveRepository;
+        this.reviewRatingSummaryRepository = reviewRatingSummaryRepository;
+        this.reviewBulkService = reviewBulkService;
+        this.reviewValidator = reviewValidator;
+        this.reviewPublisher = reviewPublisher;
+    }
+
+    /**
+     * Com movieInfoId a resposta é uma página ordenada por _id. O token da
+     * próxima página vai no header X-Next-Page-Token e carrega o último id
+     * retornado, de forma que o corpo continue sendo a lista de reviews.
+     */
+    public Mono<ServerResponse> getReviews(final ServerRequest request) {
+
+        if (request.queryParam("movieInfoId").isEmpty()) {
+            return ServerResponse.ok()
+                    .body(reviewReactiveRepository.findAll()
+                            .name(REPOSITORY_METRICS).tag("operation", "findAll").metrics(), Review.class);
+        }
+
+        return Mono.fromCallable(() -> movieInfoId(request))
+                .flatMap(movieInfoId -> {
+                    final int pageSize = pageSize(request);
+                    final String afterId = decodePageToken(request.queryParam("pageToken").orElse(null));
+                    return findPage(movieInfoId, afterId, pageSize)
+                            .flatMap(reviews -> {
+                                final ServerResponse.BodyBuilder response = ServerResponse.ok();
+                                if (reviews.size() == pageSize) {
+                                    response.header(NEXT_PAGE_TOKEN_HEADER, encodePageToken(lastId(reviews)));
+                                }
+                                return response.bodyValue(reviews);
+                            });
+                });
+    }
+
+    /**
+     * Versão NDJSON de getReviews: percorre as reviews do filme em lotes de
+     * size, buscando o próximo lote só quando o anterior foi consumido. Nem
+     * a memória nem o cursor crescem com a quantidade de reviews.
+     */
+    public Mono<ServerResponse> streamReviews(final ServerRequest request) {
+
+        if (request.queryParam("movieInfoId").isEmpty()) {
+            return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(reviewReactiveRepository.findAll()
+                            .name(REPOSITORY_METRICS).tag("operation", "findAll").metrics(), Review.class);
+        }
+
+        return Mono.fromCallable(() -> movieInfoId(request))
+                .flatMap(movieInfoId -> {
+                    final int pageSize = pageSize(request);
+                    final Flux<Review> reviews = findPage(movieInfoId, null, pageSize)
+                            .expand(page -> page.size() < pageSize
+                                    ? Mono.empty()
+                                    : findPage(movieInfoId, lastId(page), pageSize))
+                            .concatMapIterable(Function.identity());
+                    return ServerResponse.ok()
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .body(reviews, Review.class);
+                });
+    }
+
+    /**
+     * Devolve um MovieInfoReviews por movieInfoId pedido, na ordem pedida,
+     * com no máximo limit reviews cada. Cada filme é uma consulta com limit
+     * pelo índice movieInfoId_id, então um filme com muitas reviews não lê
+     * mais que limit documentos do MongoDB. No máximo BATCH_CONCURRENCY
+     * consultas ficam em andamento. Filmes sem reviews vêm com a lista vazia.
+     */
+    public Mono<ServerResponse> getReviewsBatch(final ServerRequest request) {
+
+        return Mono.fromCallable(() -> batchMovieInfoIds(request))
+                .flatMap(movieInfoIds -> {
+                    final Pageable firstPage = PageRequest.of(0, batchLimit(request));
+
+                    final Flux<MovieInfoReviews> reviews = Flux.fromIterable(movieInfoIds)
+                            .flatMapSequential(movieInfoId -> reviewReactiveRepository
+                                    .findByMovieInfoIdOrderByReviewIdAsc(movieInfoId, firstPage)
+                                    .name(REPOSITORY_METRICS).tag("operation", "findBatch").metrics()
+                                    .collectList()
+                                    .map(group -> new MovieInfoReviews(movieInfoId, group)), BATCH_CONCURRENCY);
+
+                    return ServerResponse.ok()
+                            .body(reviews, MovieInfoReviews.class);
+                });
+    }
+
+    /**
+     * Cada subscriber consome por uma fila própria e limitada: um cliente lento
+     * perde as reviews mais antigas ao invés de atrasar os demais.
+     */
+    public Mono<ServerResponse> getReviewsStream(final ServerRequest request) {
+
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(reviewPublisher.asFlux()
+                        .onBackpressureBuffer(SUBSCRIBER_BUFFER_SIZE, BufferOverflowStrategy.DROP_OLDEST), Review.class);
+    }
+
+    public Mono<ServerResponse> addReview(final ServerRequest request) {
+
+        return request.bodyToMono(Review.class)
+                .map(reviewValidator::validate)
+                .flatMap(review -> reviewReactiveRepository.save(review)
+                        .name(REPOSITORY_METRICS).tag("operation", "save").metrics())
+                .flatMap(savedReview -> addRating(savedReview.getMovieInfoId(), savedReview.getRating())
+                        .thenReturn(savedReview))
+                .doOnNext(reviewPublisher::publish)
+                .flatMap(savedReview -> ServerResponse.status(HttpStatus.CREATED)
+                        .bodyValue(savedReview));
+    }
+
+    /**
+     * Importação em lote: NDJSON de reviews na entrada e um ReviewBulkResult
+     * por review na saída, na mesma ordem. Reviews inválidas não interrompem
+     * a importação, o erro de validação vem no resultado de cada uma.
+     */
+    public Mono<ServerResponse> addReviews(final ServerRequest request) {
+
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(reviewBulkService.addReviews(request.bodyToFlux(Review.class)), ReviewBulkResult.class);
+    }
+
+    /**
+     * A review lida no início serve só para o 404 e a validação. A nota que
+     * sai do agregado é a do documento que o update atômico de fato
+     * substituiu, então PUTs simultâneos na mesma review retiram, cada um, a
+     * nota que encontraram gravada.
+     */
+    public Mono<ServerResponse> updateReview(final ServerRequest request) {
+
+        final String reviewId = request.pathVariable("id");
+
+        return reviewReactiveRepository.findById(reviewId)
+                .name(REPOSITORY_METRICS).tag("operation", "findById").metrics()
+                .switchIfEmpty(Mono.error(new ReviewNotFoundException("Review not found for the given Review Id " + reviewId)))
+                .flatMap(review -> request.bodyToMono(Review.class)
+                        .flatMap(updatedReview -> {
+                            review.setComment(updatedReview.getComment());
+                            review.setRating(updatedReview.getRating());
+                            reviewValidator.validate(review);
+                            return reviewReactiveRepository.replace(reviewId, review.getComment(), review.getRating())
+                                    .name(REPOSITORY_METRICS).tag("operation", "replace").metrics()
+                                    .switchIfEmpty(Mono.error(new ReviewNotFoundException(
+                                            "Review not found for the given Review Id " + reviewId)))
+                                    .flatMap(previousReview -> {
+                                        final Double previousRating = previousReview.getRating();
+                                        previousReview.setComment(review.getComment());
+                                        previousReview.setRating(review.getRating());
+                                        return replaceRating(previousReview, previousRating)
+                                                .thenReturn(previousReview);
+                                    });
+                        }))
+                .flatMap(savedReview -> ServerResponse.ok()
+                        .bodyValue(savedReview));
+    }
+
+    /**
+     * Só quem de fato removeu o documento retira a nota do agregado: em dois
+     * DELETEs simultâneos da mesma review o segundo recebe 404.
+     */
+    public Mono<ServerResponse> deleteReview(final ServerRequest request) {
+
+        final String reviewId = request.pathVariable("id");
+
+        return reviewReactiveRepository.remove(reviewId)
+                .name(REPOSITORY_METRICS).tag("operation", "remove").metrics()
+                .switchIfEmpty(Mono.error(new ReviewNotFoundException("Review not found for the given Review Id " + reviewId)))
+                .flatMap(review -> removeRating(review.getMovieInfoId(), review.getRating()))
+                .then(ServerResponse.noContent().build());
+    }
+
+    /**
+     * Lê o agregado mantido a cada escrita, sem percorrer as reviews. Um filme
+     * sem reviews recebe um agregado vazio.
+     */
+    public Mono<ServerResponse> getRatingSummary(final ServerRequest request) {
+
+        return Mono.fromCallable(() -> parseMovieInfoId(request.pathVariable("movieInfoId")))
+                .flatMap(movieInfoId -> reviewRatingSummaryRepository.findById(movieInfoId)
+                        .name(REPOSITORY_METRICS).tag("operation", "findRatingSummary").metrics()
+                        .defaultIfEmpty(ReviewRatingSummary.empty(movieInfoId)))
+                .flatMap(summary -> ServerResponse.ok()
+                        .bodyValue(summary));
+    }
+
+    // reviews sem nota não entram no agregado
+    private Mono<ReviewRatingSummary> addRating(final Long movieInfoId, final Double rating) {
+        return movieInfoId == null || rating == null
+                ? Mono.empty()
+                : reviewRatingSummaryRepository.addRating(movieInfoId, rating);
+    }
+
+    private Mono<ReviewRatingSummary> replaceRating(final Review review, final Double previousRating) {
+
+        if (Objects.equals(previousRating, review.getRating())) {
+            return Mono.empty();
+        }
+
+        return removeRating(review.getMovieInfoId(), previousRating)
+                .then(addRating(review.getMovieInfoId(), review.getRating()));
+    }
+
+    private Mono<ReviewRatingSummary> removeRating(final Long movieInfoId, final Double rating) {
+        return movieInfoId == null || rating == null
+                ? Mono.empty()
+                : reviewRatingSummaryRepository.removeRating(movieInfoId, rating);
+    }
+
+    private Mono<List<Review>> findPage(final Long movieInfoId, final String afterId, final int size) {
+
+        final Pageable pageable = PageRequest.of(0, size);
+
+        return (afterId == null
+                ? reviewReactiveRepository.findByMovieInfoIdOrderByReviewIdAsc(movieInfoId, pageable)
+                : reviewReactiveRepository.findByMovieInfoIdAndReviewIdGreaterThanOrderByReviewIdAsc(movieInfoId, afterId, pageable))
+                .name(REPOSITORY_METRICS).tag("operation", "findPage").metrics()
+                .collectList();
+    }
+
+    private static Long movieInfoId(final ServerRequest request) {
+        return parseMovieInfoId(request.queryParam("movieInfoId").orElseThrow());
+    }
+
+    private static Long parseMovieInfoId(final String movieInfoId) {
+
+        try {
+            return Long.valueOf(movieInfoId);
+        } catch (NumberFormatException ex) {
+            throw new ReviewDataException("review.movieInfoId must be a number");
+        }
+    }
+
+    private static Set<Long> batchMovieInfoIds(final ServerRequest request) {
+
+        final Set<Long> movieInfoIds = request.queryParams()
+                .getOrDefault("movieInfoIds", List.of())
+                .stream()
+                .flatMap(param -> Arrays.stream(param.split(",")))
+                .map(String::trim)
+                .filter(movieInfoId -> !movieInfoId.isEmpty())
+                .map(ReviewHandler::parseMovieInfoId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        if (movieInfoIds.isEmpty() || movieInfoIds.size() > MAX_BATCH_MOVIE_INFO_IDS) {
+            throw new ReviewDataException("review.movieInfoIds must have between 1 and "
+                    + MAX_BATCH_MOVIE_INFO_IDS + " ids");
+        }
+
+        return movieInfoIds;
+    }
+
+    private static int batchLimit(final ServerRequest request) {
+
+        final String limit = request.queryParam("limit").orElse(String.valueOf(DEFAULT_BATCH_LIMIT));
+
+        try {
+            return Math.max(1, Math.min(Integer.parseInt(limit), MAX_BATCH_LIMIT));
+        } catch (NumberFormatException ex) {
+            throw new ReviewDataException("review.limit must be a number");
+        }
+    }
+
+    private static int pageSize(final ServerRequest request) {
+
+        final String size = request.queryParam("size").orElse(String.valueOf(DEFAULT_PAGE_SIZE));
+
+        try {
+            return Math.max(1, Math.min(Integer.parseInt(size), MAX_PAGE_SIZE));
+        } catch (NumberFormatException ex) {
+            throw new ReviewDataException("review.size must be a number");
+        }
+    }
+
+    private static String lastId(final List<Review> reviews) {
+        return reviews.get(reviews.size() - 1).getReviewId();
+    }
+
+    private static String encodePageToken(final String afterId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(afterId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePageToken(final String pageToken) {
+
+        if (pageToken == null) {
+            return null;
+        }
+
+        try {
+            return new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new ReviewDataException("review.pageToken is not valid");
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Component
+public class ReviewIndexes {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final MongoMappingContext mongoMappingContext;
+
+    @Autowired
+    public ReviewIndexes(final ReactiveMongoTemplate reactiveMongoTemplate,
+                         final MongoMappingContext mongoMappingContext) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.mongoMappingContext = mongoMappingContext;
+    }
+
+    /**
+     * Os índices são criados depois que a aplicação subiu e sem bloquear a
+     * inicialização. Se o MongoDB estiver indisponível o erro é apenas logado.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+
+        ensureIndexes()
+                .subscribe(
+                        indexName -> log.info("Review index {} is in place", indexName),
+                        ex -> log.error("Could not create Review indexes: {}", ex.getMessage(), ex));
+    }
+
+    public Flux<String> ensureIndexes() {
+
+        final Iterable<? extends IndexDefinition> indexDefinitions =
+                new MongoPersistentEntityIndexResolver(mongoMappingContext).resolveIndexFor(Review.class);
+
+        return Flux.fromIterable(indexDefinitions)
+                .concatMap(indexDefinition -> reactiveMongoTemplate.indexOps(Review.class)
+                        .ensureIndex(indexDefinition));
+    }
+
+    /**
+     * Executa o explain da query e informa se o plano vencedor usa um índice
+     * (IXSCAN) ao invés de varrer a coleção (COLLSCAN).
+     */
+    public Mono<Boolean> usesIndex(final Query query) {
+
+        return explain(query)
+                .map(plan -> plan.toJson().contains("IXSCAN"));
+    }
+
+    public Mono<Document> explain(final Query query) {
+
+        final Document find = new Document("find", reactiveMongoTemplate.getCollectionName(Review.class))
+                .append("filter", query.getQueryObject())
+                .append("sort", query.getSortObject());
+
+        final Document explain = new Document("explain", find)
+                .append("verbosity", "queryPlanner");
+
+        return reactiveMongoTemplate.executeCommand(explain)
+                .map(result -> result.get("queryPlanner", Document.class).get("winningPlan", Document.class));
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.ReviewRatingSummary;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReviewRatingSummaryRepository extends ReactiveMongoRepository<ReviewRatingSummary, Long>,
+        ReviewRatingSummaryRepositoryCustom {
+
+}
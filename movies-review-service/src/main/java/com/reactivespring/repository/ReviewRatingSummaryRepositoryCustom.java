@@ -0,0 +1,28 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.ReviewRatingSummary;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReviewRatingSummaryRepositoryCustom {
+
+    /**
+     * Soma a nota ao agregado do filme em um único update atômico, criando o
+     * agregado se ele ainda não existir.
+     */
+    Mono<ReviewRatingSummary> addRating(Long movieInfoId, double rating);
+
+    /**
+     * Mesmo que addRating, mas soma várias notas do mesmo filme em um único
+     * update. Usado pela importação em lote.
+     */
+    Mono<ReviewRatingSummary> addRatings(Long movieInfoId, List<Double> ratings);
+
+    /**
+     * Retira a nota do agregado do filme. Se ela era o min ou o max atual,
+     * esses limites são recalculados a partir das reviews restantes.
+     */
+    Mono<ReviewRatingSummary> removeRating(Long movieInfoId, double rating);
+
+}
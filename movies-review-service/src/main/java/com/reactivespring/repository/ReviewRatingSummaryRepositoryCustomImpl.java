@@ -0,0 +1,118 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewRatingSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class ReviewRatingSummaryRepositoryCustomImpl implements ReviewRatingSummaryRepositoryCustom {
+
+    private static final int MAX_BOUNDS_ATTEMPTS = 5;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    public ReviewRatingSummaryRepositoryCustomImpl(final ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Mono<ReviewRatingSummary> addRating(final Long movieInfoId, final double rating) {
+        return addRatings(movieInfoId, List.of(rating));
+    }
+
+    @Override
+    public Mono<ReviewRatingSummary> addRatings(final Long movieInfoId, final List<Double> ratings) {
+
+        final Update update = new Update()
+                .inc("count", ratings.size())
+                .inc("sum", ratings.stream().mapToDouble(Double::doubleValue).sum())
+                .min("min", Collections.min(ratings))
+                .max("max", Collections.max(ratings))
+                .inc("revision", 1);
+
+        ratings.stream()
+                .collect(Collectors.groupingBy(ReviewRatingSummary::histogramBucket, Collectors.counting()))
+                .forEach((bucket, count) -> update.inc("histogram." + bucket, count));
+
+        return reactiveMongoTemplate.findAndModify(byMovieInfoId(movieInfoId), update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), ReviewRatingSummary.class);
+    }
+
+    @Override
+    public Mono<ReviewRatingSummary> removeRating(final Long movieInfoId, final double rating) {
+
+        final Update update = new Update()
+                .inc("count", -1)
+                .inc("sum", -rating)
+                .inc("histogram." + ReviewRatingSummary.histogramBucket(rating), -1)
+                .inc("revision", 1);
+
+        return reactiveMongoTemplate.findAndModify(byMovieInfoId(movieInfoId), update,
+                        FindAndModifyOptions.options().returnNew(true), ReviewRatingSummary.class)
+                .flatMap(summary -> Double.valueOf(rating).equals(summary.getMin())
+                        || Double.valueOf(rating).equals(summary.getMax())
+                        ? recomputeBounds(summary, MAX_BOUNDS_ATTEMPTS)
+                        : Mono.just(summary));
+    }
+
+    /**
+     * min e max não podem ser decrementados como count e sum, então são lidos
+     * de novo das reviews do filme. Cada leitura é um único documento pelo
+     * índice movieInfoId_rating.
+     *
+     * <p>A gravação só acontece se a revision ainda é a lida antes das
+     * reviews. Se outra nota foi somada ou retirada no meio, os limites
+     * calculados podem não a incluir, então a leitura é refeita a partir do
+     * agregado atual.
+     */
+    private Mono<ReviewRatingSummary> recomputeBounds(final ReviewRatingSummary summary, final int attempts) {
+
+        if (attempts == 0) {
+            return Mono.error(new OptimisticLockingFailureException(
+                    "Rating bounds of movie " + summary.getMovieInfoId() + " kept changing while being recomputed"));
+        }
+
+        final Long movieInfoId = summary.getMovieInfoId();
+        final Query sameRevision = new Query(Criteria.where("_id").is(movieInfoId)
+                .and("revision").is(summary.getRevision()));
+
+        return Mono.zip(boundRating(movieInfoId, Sort.Direction.ASC), boundRating(movieInfoId, Sort.Direction.DESC))
+                .flatMap(bounds -> reactiveMongoTemplate.findAndModify(sameRevision,
+                        new Update()
+                                .set("min", bounds.getT1().orElse(null))
+                                .set("max", bounds.getT2().orElse(null)),
+                        FindAndModifyOptions.options().returnNew(true), ReviewRatingSummary.class))
+                .switchIfEmpty(Mono.defer(() -> reactiveMongoTemplate.findOne(byMovieInfoId(movieInfoId),
+                                ReviewRatingSummary.class)
+                        .flatMap(current -> recomputeBounds(current, attempts - 1))));
+    }
+
+    private Mono<Optional<Double>> boundRating(final Long movieInfoId, final Sort.Direction direction) {
+
+        final Query query = new Query(Criteria.where("movieInfoId").is(movieInfoId).and("rating").ne(null))
+                .with(Sort.by(direction, "rating"))
+                .limit(1);
+
+        return reactiveMongoTemplate.findOne(query, Review.class)
+                .map(review -> Optional.of(review.getRating()))
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    private static Query byMovieInfoId(final Long movieInfoId) {
+        return new Query(Criteria.where("_id").is(movieInfoId));
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReviewReactiveRepository extends ReactiveMongoRepository<Review, String>,
+        ReviewReactiveRepositoryCustom {
+
+    /**
+     * Primeira página de reviews do filme, ordenada por _id. Atendida pelo
+     * índice movieInfoId_id.
+     */
+    Flux<Review> findByMovieInfoIdOrderByReviewIdAsc(Long movieInfoId, Pageable pageable);
+
+    /**
+     * Páginas seguintes: parte do último _id retornado ao invés de usar skip,
+     * então o custo não cresce com a posição da página.
+     */
+    Flux<Review> findByMovieInfoIdAndReviewIdGreaterThanOrderByReviewIdAsc(Long movieInfoId, String reviewId,
+                                                                           Pageable pageable);
+
+}
@@ -0,0 +1,34 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ReviewReactiveRepositoryCustom {
+
+    /**
+     * Insere todas as reviews em um único insertMany não ordenado, então a
+     * falha de um documento não impede a gravação dos demais. Os ids gerados
+     * são atribuídos às próprias reviews e o retorno traz o erro de cada
+     * documento que não foi gravado, indexado pela posição na lista.
+     */
+    Mono<Map<Integer, String>> insertUnordered(List<Review> reviews);
+
+    /**
+     * Remove a review em uma única operação atômica e retorna o documento
+     * removido. Quando o id não existe, ou outra requisição já o removeu,
+     * nada é retornado.
+     */
+    Mono<Review> remove(String reviewId);
+
+    /**
+     * Troca comment e rating da review em uma única operação atômica e
+     * retorna o documento como estava antes da troca, para que quem chama
+     * saiba exatamente qual nota foi substituída. Quando o id não existe nada
+     * é retornado.
+     */
+    Mono<Review> replace(String reviewId, String comment, Double rating);
+
+}
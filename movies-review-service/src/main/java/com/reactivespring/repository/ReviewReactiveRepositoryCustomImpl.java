@@ -0,0 +1,74 @@
+package com.reactivespring.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.reactivespring.domain.Review;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ReviewReactiveRepositoryCustomImpl implements ReviewReactiveRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    public ReviewReactiveRepositoryCustomImpl(final ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertUnordered(final List<Review> reviews) {
+
+        final List<Document> documents = new ArrayList<>(reviews.size());
+        for (Review review : reviews) {
+            final Document document = new Document();
+            reactiveMongoTemplate.getConverter().write(review, document);
+            documents.add(document);
+        }
+
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Review.class))
+                .flatMap(collection -> Mono.from(collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+                .map(result -> Map.<Integer, String>of())
+                .onErrorResume(MongoBulkWriteException.class, ex -> Mono.just(ex.getWriteErrors().stream()
+                        .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage))))
+                // o driver atribui o _id aos documentos que não tinham um
+                .doOnNext(errors -> {
+                    for (int i = 0; i < reviews.size(); i++) {
+                        reviews.get(i).setReviewId(documents.get(i).get("_id").toString());
+                    }
+                });
+    }
+
+    @Override
+    public Mono<Review> remove(final String reviewId) {
+
+        return reactiveMongoTemplate.findAndRemove(byReviewId(reviewId), Review.class);
+    }
+
+    @Override
+    public Mono<Review> replace(final String reviewId, final String comment, final Double rating) {
+
+        final Update update = new Update()
+                .set("comment", comment)
+                .set("rating", rating);
+
+        return reactiveMongoTemplate.findAndModify(byReviewId(reviewId), update,
+                FindAndModifyOptions.options().returnNew(false), Review.class);
+    }
+
+    private static Query byReviewId(final String reviewId) {
+        return new Query(Criteria.where("_id").is(reviewId));
+    }
+
+}
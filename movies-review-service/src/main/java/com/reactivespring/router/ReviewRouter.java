@@ -0,0 +1,43 @@
+package com.reactivespring.router;
+
+import com.reactivespring.handler.ReviewHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.path;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+@Configuration
+public class ReviewRouter {
+
+    /**
+     * RequestPredicates.accept também casa com Accept curinga, o que desviaria qualquer
+     * cliente sem Accept para o streaming. Aqui o NDJSON precisa ser pedido.
+     */
+    private static final RequestPredicate ACCEPTS_NDJSON = request -> request.headers()
+            .accept()
+            .stream()
+            .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+
+    @Bean
+    public RouterFunction<ServerResponse> reviewsRoute(final ReviewHandler reviewHandler) {
+
+        return route()
+                .nest(path("/v1/reviews"), builder -> builder
+                        .GET("/stream", reviewHandler::getReviewsStream)
+                        .GET("/summary/{movieInfoId}", reviewHandler::getRatingSummary)
+                        .GET("/batch", reviewHandler::getReviewsBatch)
+                        .GET("", ACCEPTS_NDJSON, reviewHandler::streamReviews)
+                        .GET("", reviewHandler::getReviews)
+                        .POST("", reviewHandler::addReview)
+                        .POST("/bulk", reviewHandler::addReviews)
+                        .PUT("/{id}", reviewHandler::updateReview)
+                        .DELETE("/{id}", reviewHandler::deleteReview))
+                .build();
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.reactivespring.service;
+
+import com.reactivespring.config.ReviewBulkProperties;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewBulkResult;
+import com.reactivespring.repository.ReviewRatingSummaryRepository;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+public class ReviewBulkService {
+
+    private final ReviewReactiveRepository reviewReactiveRepository;
+
+    private final ReviewRatingSummaryRepository reviewRatingSummaryRepository;
+
+    private final ReviewValidator reviewValidator;
+
+    private final ReviewBulkProperties properties;
+
+    private final ReviewPublisher reviewPublisher;
+
+    @Autowired
+    public ReviewBulkService(final ReviewReactiveRepository reviewReactiveRepository,
+                             final ReviewRatingSummaryRepository reviewRatingSummaryRepository,
+                             final ReviewValidator reviewValidator,
+                             final ReviewBulkProperties properties,
+                             final ReviewPublisher reviewPublisher) {
+        this.reviewReactiveRepository = reviewReactiveRepository;
+        this.reviewRatingSummaryRepository = reviewRatingSummaryRepository;
+        this.reviewValidator = reviewValidator;
+        this.properties = properties;
+        this.reviewPublisher = reviewPublisher;
+    }
+
+    /**
+     * As reviews são validadas uma a uma e agrupadas em lotes de batchSize
+     * para gravação. No máximo concurrency lotes são gravados ao mesmo tempo,
+     * então a memória usada não depende do tamanho da importação. Os
+     * resultados são devolvidos na mesma ordem da entrada. Assim como no POST
+     * de uma review, as reviews gravadas são publicadas no stream depois de
+     * entrarem no agregado.
+     */
+    public Flux<ReviewBulkResult> addReviews(final Flux<Review> reviews) {
+
+        return reviews.index()
+                .buffer(properties.getBatchSize())
+                .flatMapSequential(this::insertBatch, properties.getConcurrency())
+                .flatMapIterable(results -> results);
+    }
+
+    private Mono<List<ReviewBulkResult>> insertBatch(final List<Tuple2<Long, Review>> batch) {
+
+        final List<ReviewBulkResult> results = new ArrayList<>(batch.size());
+        final List<Review> valid = new ArrayList<>(batch.size());
+        final List<ReviewBulkResult> validResults = new ArrayList<>(batch.size());
+
+        for (Tuple2<Long, Review> indexed : batch) {
+            final Optional<String> violations = reviewValidator.violations(indexed.getT2());
+            final ReviewBulkResult result = new ReviewBulkResult(indexed.getT1(), null, null, null);
+
+            if (violations.isEmpty()) {
+                valid.add(indexed.getT2());
+                validResults.add(result);
+            } else {
+                result.setStatus(ReviewBulkResult.Status.INVALID);
+                result.setError(violations.get());
+            }
+            results.add(result);
+        }
+
+        if (valid.isEmpty()) {
+            return Mono.just(results);
+        }
+
+        return reviewReactiveRepository.insertUnordered(valid)
+                .name("reviews.repository").tag("operation", "insertUnordered").metrics()
+                .map(errors -> complete(valid, validResults, errors))
+                .flatMap(created -> addRatings(created)
+                        .doOnSuccess(done -> created.forEach(reviewPublisher::publish)))
+                .thenReturn(results);
+    }
+
+    private List<Review> complete(final List<Review> inserted,
+                                  final List<ReviewBulkResult> results,
+                                  final Map<Integer, String> errors) {
+
+        final List<Review> created = new ArrayList<>(inserted.size());
+
+        for (int i = 0; i < inserted.size(); i++) {
+            final ReviewBulkResult result = results.get(i);
+
+            if (errors.containsKey(i)) {
+                result.setStatus(ReviewBulkResult.Status.FAILED);
+                result.setError(errors.get(i));
+            } else {
+                result.setStatus(ReviewBulkResult.Status.CREATED);
+                result.setReviewId(inserted.get(i).getReviewId());
+                created.add(inserted.get(i));
+            }
+        }
+
+        return created;
+    }
+
+    /**
+     * Um update por filme do lote ao invés de um por review.
+     */
+    private Mono<Void> addRatings(final List<Review> created) {
+
+        final Map<Long, List<Double>> ratingsByMovieInfoId = created.stream()
+                .filter(review -> review.getRating() != null)
+                .collect(Collectors.groupingBy(Review::getMovieInfoId,
+                        Collectors.mapping(Review::getRating, Collectors.toList())));
+
+        return Flux.fromIterable(ratingsByMovieInfoId.entrySet())
+                .concatMap(entry -> reviewRatingSummaryRepository.addRatings(entry.getKey(), entry.getValue()))
+                .then();
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.Review;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Stream das reviews criadas, compartilhado entre o POST de uma review e a
+ * importação em lote para que /v1/reviews/stream receba as duas.
+ */
+@Slf4j
+@Component
+public class ReviewPublisher {
+
+    /**
+     * Novos subscribers recebem a última review publicada e as seguintes.
+     */
+    private final Sinks.Many<Review> reviewsSink = Sinks.many().replay().latest();
+
+    @Autowired
+    public ReviewPublisher(final MeterRegistry meterRegistry) {
+
+        Gauge.builder("reviews.stream.subscribers", reviewsSink, Sinks.Many::currentSubscriberCount)
+                .description("Clients currently subscribed to the reviews stream")
+                .register(meterRegistry);
+    }
+
+    public Flux<Review> asFlux() {
+        return reviewsSink.asFlux();
+    }
+
+    /**
+     * Requisições concorrentes podem emitir ao mesmo tempo, por isso a emissão
+     * é serializada aqui ao invés de descartar o resultado de tryEmitNext.
+     */
+    public synchronized void publish(final Review review) {
+
+        final Sinks.EmitResult result = reviewsSink.tryEmitNext(review);
+
+        if (result.isFailure()) {
+            log.warn("Review {} could not be published to stream: {}", review.getReviewId(), result);
+        }
+    }
+
+}
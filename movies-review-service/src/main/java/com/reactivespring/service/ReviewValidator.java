@@ -0,0 +1,51 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.ReviewDataException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Rotas funcionais não têm @Valid, então as reviews são validadas aqui com o
+ * mesmo Validator usado pelos controllers.
+ */
+@Component
+public class ReviewValidator {
+
+    private final Validator validator;
+
+    @Autowired
+    public ReviewValidator(final Validator validator) {
+        this.validator = validator;
+    }
+
+    public Review validate(final Review review) {
+
+        violations(review).ifPresent(message -> {
+            throw new ReviewDataException(message);
+        });
+
+        return review;
+    }
+
+    /**
+     * Mensagens das violações em ordem alfabética e separadas por vírgula, ou
+     * vazio quando a review é válida.
+     */
+    public Optional<String> violations(final Review review) {
+
+        final String message = validator.validate(review)
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+
+        return message.isEmpty() ? Optional.empty() : Optional.of(message);
+    }
+
+}
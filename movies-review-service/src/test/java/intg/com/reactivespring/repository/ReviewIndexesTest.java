@@ -0,0 +1,38 @@
+package com.reactivespring.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(ReviewIndexes.class)
+class ReviewIndexesTest {
+
+    @Autowired
+    private ReviewIndexes reviewIndexes;
+
+    @BeforeEach
+    void setUp() {
+        reviewIndexes.ensureIndexes().blockLast();
+    }
+
+    @Test
+    void findByMovieInfoIdUsesIndex() {
+
+        var query = Query.query(Criteria.where("movieInfoId").is(1L))
+                .with(Sort.by(Sort.Direction.ASC, "_id"));
+
+        StepVerifier.create(reviewIndexes.usesIndex(query))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+}
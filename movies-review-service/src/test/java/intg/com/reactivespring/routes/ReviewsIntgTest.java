@@ -1,4 +1,305 @@
 package com.reactivespring.routes;
 
+import com.reactivespring.domain.MovieInfoReviews;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewBulkResult;
+import com.reactivespring.handler.ReviewHandler;
+import com.reactivespring.repository.ReviewRatingSummaryRepository;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
 public class ReviewsIntgTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @Autowired
+    private ReviewRatingSummaryRepository reviewRatingSummaryRepository;
+
+    private static final String REVIEWS_URL = "/v1/reviews";
+
+    @BeforeEach
+    void setUp() {
+        var reviews = List.of(
+                new Review(null, 1L, "Awesome Movie", 9.0),
+                new Review(null, 1L, "Awesome Movie1", 9.0),
+                new Review("abc", 2L, "Excellent Movie", 8.0));
+
+        reviewReactiveRepository.saveAll(reviews)
+                .blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+        reviewRatingSummaryRepository.deleteAll().block();
+    }
+
+    @Test
+    void addReview() {
+
+        var review = new Review(null, 1L, "Awesome Movie", 9.0);
+
+        webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(review)
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody(Review.class)
+                .consumeWith(reviewEntityExchangeResult -> {
+                    final Review responseBody = reviewEntityExchangeResult.getResponseBody();
+                    assert responseBody != null;
+                    assertNotNull(responseBody.getReviewId());
+                });
+    }
+
+    @Test
+    void addReviews() {
+
+        var resultsFlux = webTestClient.post()
+                .uri(REVIEWS_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"movieInfoId\":4,\"comment\":\"Awesome Movie\",\"rating\":9.0}\n"
+                        + "{\"movieInfoId\":4,\"comment\":\"Awful Movie\",\"rating\":-1.0}\n"
+                        + "{\"movieInfoId\":4,\"comment\":\"Good Movie\",\"rating\":7.0}\n")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(ReviewBulkResult.class)
+                .getResponseBody();
+
+        StepVerifier.create(resultsFlux)
+                .assertNext(result -> assertEquals(ReviewBulkResult.Status.CREATED, result.getStatus()))
+                .assertNext(result -> assertEquals(ReviewBulkResult.Status.INVALID, result.getStatus()))
+                .assertNext(result -> assertEquals(ReviewBulkResult.Status.CREATED, result.getStatus()))
+                .verifyComplete();
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "/summary/{movieInfoId}", 4L)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.average").isEqualTo(8.0);
+    }
+
+    @Test
+    void getReviews() {
+
+        webTestClient.get()
+                .uri(REVIEWS_URL)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(Review.class)
+                .hasSize(3);
+    }
+
+    @Test
+    void getReviewsByMovieInfoId() {
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "?movieInfoId=1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(Review.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void getReviewsByMovieInfoId_paginated() {
+
+        var nextPageToken = webTestClient.get()
+                .uri(REVIEWS_URL + "?movieInfoId=1&size=1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(Review.class)
+                .hasSize(1)
+                .returnResult()
+                .getResponseHeaders()
+                .getFirst(ReviewHandler.NEXT_PAGE_TOKEN_HEADER);
+
+        assertNotNull(nextPageToken);
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "?movieInfoId=1&size=1&pageToken=" + nextPageToken)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(Review.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void streamReviewsByMovieInfoId() {
+
+        var reviewsFlux = webTestClient.get()
+                .uri(REVIEWS_URL + "?movieInfoId=1&size=1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(Review.class)
+                .getResponseBody();
+
+        StepVerifier.create(reviewsFlux)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void getReviewsStream() {
+
+        webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(new Review(null, 1L, "Awesome Movie", 9.0))
+                .exchange()
+                .expectStatus()
+                .isCreated();
+
+        var reviewsStreamFlux = webTestClient.get()
+                .uri(REVIEWS_URL + "/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(Review.class)
+                .getResponseBody();
+
+        StepVerifier.create(reviewsStreamFlux)
+                .assertNext(review -> assertNotNull(review.getReviewId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void getReviewsBatch() {
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "/batch?movieInfoIds=1,2&limit=1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfoReviews.class)
+                .hasSize(2)
+                .value(groups -> groups.forEach(group -> assertEquals(1, group.getReviews().size())));
+    }
+
+    @Test
+    void updateReview() {
+
+        webTestClient.put()
+                .uri(REVIEWS_URL + "/{id}", "abc")
+                .bodyValue(new Review(null, 2L, "Not an Awesome Movie", 8.5))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(Review.class)
+                .consumeWith(reviewEntityExchangeResult -> {
+                    final Review responseBody = reviewEntityExchangeResult.getResponseBody();
+                    assert responseBody != null;
+                    assertEquals("Not an Awesome Movie", responseBody.getComment());
+                });
+    }
+
+    @Test
+    void deleteReview() {
+
+        webTestClient.delete()
+                .uri(REVIEWS_URL + "/{id}", "abc")
+                .exchange()
+                .expectStatus()
+                .isNoContent();
+    }
+
+    @Test
+    void ratingSummaryFollowsReviewWrites() {
+
+        var savedReview = webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(new Review(null, 3L, "Awesome Movie", 9.0))
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody(Review.class)
+                .returnResult()
+                .getResponseBody();
+
+        webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(new Review(null, 3L, "Good Movie", 7.0))
+                .exchange()
+                .expectStatus()
+                .isCreated();
+
+        assert savedReview != null;
+        webTestClient.put()
+                .uri(REVIEWS_URL + "/{id}", savedReview.getReviewId())
+                .bodyValue(new Review(null, 3L, "Excellent Movie", 8.0))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful();
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "/summary/{movieInfoId}", 3L)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.average").isEqualTo(7.5)
+                .jsonPath("$.min").isEqualTo(7.0)
+                .jsonPath("$.max").isEqualTo(8.0)
+                .jsonPath("$.histogram.9").isEqualTo(0);
+
+        webTestClient.delete()
+                .uri(REVIEWS_URL + "/{id}", savedReview.getReviewId())
+                .exchange()
+                .expectStatus()
+                .isNoContent();
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "/summary/{movieInfoId}", 3L)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(1)
+                .jsonPath("$.max").isEqualTo(7.0);
+    }
+
+    @Test
+    void deleteReview_notFound() {
+
+        webTestClient.delete()
+                .uri(REVIEWS_URL + "/{id}", "def")
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
 }
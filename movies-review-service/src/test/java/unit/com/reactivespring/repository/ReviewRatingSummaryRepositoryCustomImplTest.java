@@ -0,0 +1,92 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewRatingSummary;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReviewRatingSummaryRepositoryCustomImplTest {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplateMock = mock(ReactiveMongoTemplate.class);
+
+    private final ReviewRatingSummaryRepositoryCustomImpl repository =
+            new ReviewRatingSummaryRepositoryCustomImpl(reactiveMongoTemplateMock);
+
+    /**
+     * Notas 8 e 9; a 8 é retirada e, entre a leitura dos limites e a gravação,
+     * um addRating(7) chega. O 7 não pode se perder.
+     */
+    @Test
+    void removeRating_concurrentAddIsNotLost() {
+
+        var ratings = new ArrayList<>(List.of(9.0));
+        var stored = new ReviewRatingSummary(1L, 1, 9.0, 8.0, 9.0, Map.of("9", 1L), 3L);
+        var boundsWrites = new ArrayList<Long>();
+
+        when(reactiveMongoTemplateMock.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(ReviewRatingSummary.class))).thenAnswer(invocation -> {
+            Document query = invocation.getArgument(0, Query.class).getQueryObject();
+
+            // o decremento do próprio removeRating
+            if (!query.containsKey("revision")) {
+                return Mono.just(stored);
+            }
+
+            long revision = query.getLong("revision");
+            boundsWrites.add(revision);
+            if (boundsWrites.size() == 1) {
+                // addRating(7) concorrente, depois de os limites terem sido lidos
+                ratings.add(7.0);
+                stored.setCount(stored.getCount() + 1);
+                stored.setSum(stored.getSum() + 7.0);
+                stored.setMin(Math.min(stored.getMin(), 7.0));
+                stored.setRevision(stored.getRevision() + 1);
+            }
+            if (revision != stored.getRevision()) {
+                return Mono.empty();
+            }
+
+            Document set = (Document) invocation.getArgument(1, UpdateDefinition.class).getUpdateObject().get("$set");
+            stored.setMin(set.getDouble("min"));
+            stored.setMax(set.getDouble("max"));
+            return Mono.just(stored);
+        });
+
+        when(reactiveMongoTemplateMock.findOne(any(Query.class), eq(Review.class))).thenAnswer(invocation -> {
+            boolean ascending = invocation.getArgument(0, Query.class).getSortObject().getInteger("rating") == 1;
+            return Mono.just(new Review(null, 1L, null, ascending ? Collections.min(ratings) : Collections.max(ratings)));
+        });
+
+        when(reactiveMongoTemplateMock.findOne(any(Query.class), eq(ReviewRatingSummary.class)))
+                .thenAnswer(invocation -> Mono.just(stored));
+
+        StepVerifier.create(repository.removeRating(1L, 8.0))
+                .assertNext(summary -> {
+                    assertEquals(7.0, summary.getMin());
+                    assertEquals(9.0, summary.getMax());
+                    assertEquals(2, summary.getCount());
+                })
+                .verifyComplete();
+
+        // a primeira gravação perdeu para o addRating e foi refeita na revision nova
+        assertEquals(List.of(3L, 4L), boundsWrites);
+    }
+
+}
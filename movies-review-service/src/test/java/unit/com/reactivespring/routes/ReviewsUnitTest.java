@@ -1,4 +1,427 @@
 package com.reactivespring.routes;
 
+import com.reactivespring.domain.MovieInfoReviews;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewBulkResult;
+import com.reactivespring.domain.ReviewRatingSummary;
+import com.reactivespring.exceptionhandler.GlobalErrorHandler;
+import com.reactivespring.handler.ReviewHandler;
+import com.reactivespring.repository.ReviewRatingSummaryRepository;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.router.ReviewRouter;
+import com.reactivespring.service.ReviewBulkService;
+import com.reactivespring.service.ReviewPublisher;
+import com.reactivespring.service.ReviewValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest
+@Import({ReviewRouter.class, ReviewHandler.class, ReviewValidator.class, ReviewPublisher.class,
+        GlobalErrorHandler.class, SimpleMeterRegistry.class})
+@AutoConfigureWebTestClient
 public class ReviewsUnitTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReviewReactiveRepository reviewReactiveRepositoryMock;
+
+    @MockBean
+    private ReviewRatingSummaryRepository reviewRatingSummaryRepositoryMock;
+
+    @MockBean
+    private ReviewBulkService reviewBulkServiceMock;
+
+    private static final String REVIEWS_URL = "/v1/reviews";
+
+    @Test
+    void addReview() {
+
+        var review = new Review(null, 1L, "Awesome Movie", 9.0);
+
+        when(reviewReactiveRepositoryMock.save(isA(Review.class)))
+                .thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+        when(reviewRatingSummaryRepositoryMock.addRating(1L, 9.0))
+                .thenReturn(Mono.just(new ReviewRatingSummary()));
+
+        webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(review)
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody(Review.class)
+                .consumeWith(reviewEntityExchangeResult -> {
+                    final Review responseBody = reviewEntityExchangeResult.getResponseBody();
+                    assert responseBody != null;
+                    assertEquals("abc", responseBody.getReviewId());
+                });
+    }
+
+    @Test
+    void addReview_validation() {
+
+        var review = new Review(null, null, "Awesome Movie", -9.0);
+
+        webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(review)
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("rating.negative : please pass a non-negative value, review.movieInfoId : must not be null");
+    }
+
+    @Test
+    void addReviews() {
+
+        when(reviewBulkServiceMock.addReviews(any()))
+                .thenReturn(Flux.just(
+                        new ReviewBulkResult(0, "abc", ReviewBulkResult.Status.CREATED, null),
+                        new ReviewBulkResult(1, null, ReviewBulkResult.Status.INVALID, "rating.negative : please pass a non-negative value")));
+
+        var resultsFlux = webTestClient.post()
+                .uri(REVIEWS_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0}\n"
+                        + "{\"movieInfoId\":1,\"comment\":\"Awful Movie\",\"rating\":-1.0}\n")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(ReviewBulkResult.class)
+                .getResponseBody();
+
+        StepVerifier.create(resultsFlux)
+                .assertNext(result -> assertEquals(ReviewBulkResult.Status.CREATED, result.getStatus()))
+                .assertNext(result -> assertEquals(ReviewBulkResult.Status.INVALID, result.getStatus()))
+                .verifyComplete();
+    }
+
+    @Test
+    void getReviews() {
+
+        var reviews = List.of(
+                new Review(null, 1L, "Awesome Movie", 9.0),
+                new Review(null, 1L, "Awesome Movie1", 9.0),
+                new Review(null, 2L, "Excellent Movie", 8.0));
+
+        when(reviewReactiveRepositoryMock.findAll()).thenReturn(Flux.fromIterable(reviews));
+
+        webTestClient.get()
+                .uri(REVIEWS_URL)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(Review.class)
+                .hasSize(3);
+    }
+
+    @Test
+    void getReviewsByMovieInfoId() {
+
+        var reviews = List.of(
+                new Review("a", 1L, "Awesome Movie", 9.0),
+                new Review("b", 1L, "Awesome Movie1", 9.0));
+
+        when(reviewReactiveRepositoryMock.findByMovieInfoIdOrderByReviewIdAsc(1L, PageRequest.of(0, 2)))
+                .thenReturn(Flux.fromIterable(reviews));
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "?movieInfoId=1&size=2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .exists(ReviewHandler.NEXT_PAGE_TOKEN_HEADER)
+                .expectBodyList(Review.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void getReviewsByMovieInfoId_nextPage() {
+
+        var pageToken = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("b".getBytes(StandardCharsets.UTF_8));
+
+        when(reviewReactiveRepositoryMock.findByMovieInfoIdAndReviewIdGreaterThanOrderByReviewIdAsc(1L, "b", PageRequest.of(0, 2)))
+                .thenReturn(Flux.just(new Review("c", 1L, "Excellent Movie", 8.0)));
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "?movieInfoId=1&size=2&pageToken=" + pageToken)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .doesNotExist(ReviewHandler.NEXT_PAGE_TOKEN_HEADER)
+                .expectBodyList(Review.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getReviewsByMovieInfoId_invalidMovieInfoId() {
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "?movieInfoId=abc")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void streamReviewsByMovieInfoId() {
+
+        when(reviewReactiveRepositoryMock.findByMovieInfoIdOrderByReviewIdAsc(1L, PageRequest.of(0, 2)))
+                .thenReturn(Flux.just(
+                        new Review("a", 1L, "Awesome Movie", 9.0),
+                        new Review("b", 1L, "Awesome Movie1", 9.0)));
+        when(reviewReactiveRepositoryMock.findByMovieInfoIdAndReviewIdGreaterThanOrderByReviewIdAsc(1L, "b", PageRequest.of(0, 2)))
+                .thenReturn(Flux.just(new Review("c", 1L, "Excellent Movie", 8.0)));
+
+        var reviewsFlux = webTestClient.get()
+                .uri(REVIEWS_URL + "?movieInfoId=1&size=2")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(Review.class)
+                .getResponseBody();
+
+        StepVerifier.create(reviewsFlux)
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void getReviewsBatch() {
+
+        when(reviewReactiveRepositoryMock.findByMovieInfoIdOrderByReviewIdAsc(eq(1L), isA(Pageable.class)))
+                .thenReturn(Flux.just(
+                        new Review("a", 1L, "Awesome Movie", 9.0),
+                        new Review("b", 1L, "Awesome Movie1", 9.0)));
+        when(reviewReactiveRepositoryMock.findByMovieInfoIdOrderByReviewIdAsc(eq(2L), isA(Pageable.class)))
+                .thenReturn(Flux.just(new Review("d", 2L, "Excellent Movie", 8.0)));
+        when(reviewReactiveRepositoryMock.findByMovieInfoIdOrderByReviewIdAsc(eq(3L), isA(Pageable.class)))
+                .thenReturn(Flux.empty());
+
+        var groupsFlux = webTestClient.get()
+                .uri(REVIEWS_URL + "/batch?movieInfoIds=1,2,3&limit=2")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(MovieInfoReviews.class)
+                .getResponseBody();
+
+        StepVerifier.create(groupsFlux)
+                .assertNext(group -> {
+                    assertEquals(1L, group.getMovieInfoId());
+                    assertEquals(2, group.getReviews().size());
+                })
+                .assertNext(group -> {
+                    assertEquals(2L, group.getMovieInfoId());
+                    assertEquals(1, group.getReviews().size());
+                })
+                .assertNext(group -> {
+                    assertEquals(3L, group.getMovieInfoId());
+                    assertTrue(group.getReviews().isEmpty());
+                })
+                .verifyComplete();
+
+        // o limit vai na consulta de cada filme, não só na resposta
+        verify(reviewReactiveRepositoryMock, times(3))
+                .findByMovieInfoIdOrderByReviewIdAsc(anyLong(), argThat(pageable -> pageable.getPageSize() == 2));
+    }
+
+    @Test
+    void getReviewsBatch_withoutIds() {
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "/batch")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void updateReview() {
+
+        var reviewId = "abc";
+
+        when(reviewReactiveRepositoryMock.findById(reviewId))
+                .thenReturn(Mono.just(new Review(reviewId, 1L, "Awesome Movie", 9.0)));
+        when(reviewReactiveRepositoryMock.replace(reviewId, "Not an Awesome Movie", 8.0))
+                .thenReturn(Mono.just(new Review(reviewId, 1L, "Awesome Movie", 9.0)));
+        when(reviewRatingSummaryRepositoryMock.removeRating(1L, 9.0))
+                .thenReturn(Mono.just(new ReviewRatingSummary()));
+        when(reviewRatingSummaryRepositoryMock.addRating(1L, 8.0))
+                .thenReturn(Mono.just(new ReviewRatingSummary()));
+
+        webTestClient.put()
+                .uri(REVIEWS_URL + "/{id}", reviewId)
+                .bodyValue(new Review(null, 1L, "Not an Awesome Movie", 8.0))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(Review.class)
+                .consumeWith(reviewEntityExchangeResult -> {
+                    final Review responseBody = reviewEntityExchangeResult.getResponseBody();
+                    assert responseBody != null;
+                    assertEquals("Not an Awesome Movie", responseBody.getComment());
+                    assertEquals(8.0, responseBody.getRating());
+                });
+    }
+
+    @Test
+    void updateReview_concurrentUpdate() {
+
+        var reviewId = "abc";
+
+        // outro PUT trocou a nota de 9.0 para 7.0 entre a leitura e o update
+        when(reviewReactiveRepositoryMock.findById(reviewId))
+                .thenReturn(Mono.just(new Review(reviewId, 1L, "Awesome Movie", 9.0)));
+        when(reviewReactiveRepositoryMock.replace(reviewId, "Not an Awesome Movie", 8.0))
+                .thenReturn(Mono.just(new Review(reviewId, 1L, "Good Movie", 7.0)));
+        when(reviewRatingSummaryRepositoryMock.removeRating(1L, 7.0))
+                .thenReturn(Mono.just(new ReviewRatingSummary()));
+        when(reviewRatingSummaryRepositoryMock.addRating(1L, 8.0))
+                .thenReturn(Mono.just(new ReviewRatingSummary()));
+
+        webTestClient.put()
+                .uri(REVIEWS_URL + "/{id}", reviewId)
+                .bodyValue(new Review(null, 1L, "Not an Awesome Movie", 8.0))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful();
+
+        // sai a nota que estava gravada no momento do update, não a lida antes
+        verify(reviewRatingSummaryRepositoryMock).removeRating(1L, 7.0);
+        verify(reviewRatingSummaryRepositoryMock, never()).removeRating(1L, 9.0);
+        verify(reviewRatingSummaryRepositoryMock).addRating(1L, 8.0);
+    }
+
+    @Test
+    void updateReview_notFound() {
+
+        var reviewId = "def";
+
+        when(reviewReactiveRepositoryMock.findById(reviewId)).thenReturn(Mono.empty());
+
+        webTestClient.put()
+                .uri(REVIEWS_URL + "/{id}", reviewId)
+                .bodyValue(new Review(null, 1L, "Not an Awesome Movie", 8.0))
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
+    @Test
+    void deleteReview() {
+
+        var reviewId = "abc";
+
+        when(reviewReactiveRepositoryMock.remove(reviewId))
+                .thenReturn(Mono.just(new Review(reviewId, 1L, "Awesome Movie", 9.0)));
+        when(reviewRatingSummaryRepositoryMock.removeRating(1L, 9.0))
+                .thenReturn(Mono.just(new ReviewRatingSummary()));
+
+        webTestClient.delete()
+                .uri(REVIEWS_URL + "/{id}", reviewId)
+                .exchange()
+                .expectStatus()
+                .isNoContent();
+
+        verify(reviewRatingSummaryRepositoryMock).removeRating(1L, 9.0);
+    }
+
+    @Test
+    void deleteReview_concurrentDeletes() {
+
+        var reviewId = "abc";
+
+        // o segundo DELETE chega depois do documento já ter sido removido
+        when(reviewReactiveRepositoryMock.remove(reviewId))
+                .thenReturn(Mono.just(new Review(reviewId, 1L, "Awesome Movie", 9.0)), Mono.empty());
+        when(reviewRatingSummaryRepositoryMock.removeRating(1L, 9.0))
+                .thenReturn(Mono.just(new ReviewRatingSummary()));
+
+        webTestClient.delete()
+                .uri(REVIEWS_URL + "/{id}", reviewId)
+                .exchange()
+                .expectStatus()
+                .isNoContent();
+
+        webTestClient.delete()
+                .uri(REVIEWS_URL + "/{id}", reviewId)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+
+        verify(reviewRatingSummaryRepositoryMock, times(1)).removeRating(1L, 9.0);
+    }
+
+    @Test
+    void getRatingSummary() {
+
+        var summary = new ReviewRatingSummary(1L, 2, 17.0, 8.0, 9.0, Map.of("8", 1L, "9", 1L), 2L);
+
+        when(reviewRatingSummaryRepositoryMock.findById(1L)).thenReturn(Mono.just(summary));
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "/summary/{movieInfoId}", 1L)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.average").isEqualTo(8.5)
+                .jsonPath("$.histogram.9").isEqualTo(1)
+                .jsonPath("$.revision").doesNotExist();
+    }
+
+    @Test
+    void getRatingSummary_noReviews() {
+
+        when(reviewRatingSummaryRepositoryMock.findById(2L)).thenReturn(Mono.empty());
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "/summary/{movieInfoId}", 2L)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.movieInfoId").isEqualTo(2)
+                .jsonPath("$.count").isEqualTo(0);
+    }
+
 }
@@ -0,0 +1,123 @@
+package com.reactivespring.service;
+
+import com.reactivespring.config.ReviewBulkProperties;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewBulkResult;
+import com.reactivespring.domain.ReviewRatingSummary;
+import com.reactivespring.repository.ReviewRatingSummaryRepository;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.validation.Validation;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class ReviewBulkServiceTest {
+
+    private final ReviewReactiveRepository reviewReactiveRepositoryMock = mock(ReviewReactiveRepository.class);
+
+    private final ReviewRatingSummaryRepository reviewRatingSummaryRepositoryMock = mock(ReviewRatingSummaryRepository.class);
+
+    private ReviewPublisher reviewPublisher;
+
+    private ReviewBulkService reviewBulkService;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new ReviewBulkProperties();
+        properties.setBatchSize(3);
+        reviewPublisher = new ReviewPublisher(new SimpleMeterRegistry());
+
+        reviewBulkService = new ReviewBulkService(reviewReactiveRepositoryMock, reviewRatingSummaryRepositoryMock,
+                new ReviewValidator(Validation.buildDefaultValidatorFactory().getValidator()), properties,
+                reviewPublisher);
+    }
+
+    @Test
+    void addReviews() {
+
+        when(reviewReactiveRepositoryMock.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Review> reviews = invocation.getArgument(0);
+            reviews.forEach(review -> review.setReviewId("id-" + review.getComment()));
+            // a segunda review válida do lote falha, por exemplo por id duplicado
+            return Mono.just(reviews.size() > 1 ? Map.of(1, "duplicate key") : Map.of());
+        });
+        when(reviewRatingSummaryRepositoryMock.addRatings(anyLong(), anyList()))
+                .thenReturn(Mono.just(new ReviewRatingSummary()));
+
+        var reviews = Flux.just(
+                new Review(null, 1L, "Awesome Movie", 9.0),
+                new Review(null, 1L, "Awesome Movie1", 8.0),
+                new Review(null, null, "Bad Review", -1.0),
+                new Review(null, 2L, "Excellent Movie", 7.0));
+
+        StepVerifier.create(reviewBulkService.addReviews(reviews))
+                .assertNext(result -> {
+                    assertEquals(0, result.getIndex());
+                    assertEquals(ReviewBulkResult.Status.CREATED, result.getStatus());
+                    assertEquals("id-Awesome Movie", result.getReviewId());
+                })
+                .assertNext(result -> {
+                    assertEquals(1, result.getIndex());
+                    assertEquals(ReviewBulkResult.Status.FAILED, result.getStatus());
+                    assertEquals("duplicate key", result.getError());
+                })
+                .assertNext(result -> {
+                    assertEquals(2, result.getIndex());
+                    assertEquals(ReviewBulkResult.Status.INVALID, result.getStatus());
+                    assertEquals("rating.negative : please pass a non-negative value, review.movieInfoId : must not be null",
+                            result.getError());
+                })
+                .assertNext(result -> {
+                    assertEquals(3, result.getIndex());
+                    assertEquals(ReviewBulkResult.Status.CREATED, result.getStatus());
+                })
+                .verifyComplete();
+
+        verify(reviewReactiveRepositoryMock, times(2)).insertUnordered(anyList());
+        // apenas as reviews gravadas entram no agregado
+        verify(reviewRatingSummaryRepositoryMock).addRatings(1L, List.of(9.0));
+        verify(reviewRatingSummaryRepositoryMock).addRatings(2L, List.of(7.0));
+    }
+
+    @Test
+    void addReviews_publishesCreatedReviews() {
+
+        when(reviewReactiveRepositoryMock.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Review> reviews = invocation.getArgument(0);
+            reviews.forEach(review -> review.setReviewId("id-" + review.getComment()));
+            return Mono.just(reviews.size() > 1 ? Map.of(1, "duplicate key") : Map.of());
+        });
+        when(reviewRatingSummaryRepositoryMock.addRatings(anyLong(), anyList()))
+                .thenReturn(Mono.just(new ReviewRatingSummary()));
+
+        var reviews = Flux.just(
+                new Review(null, 1L, "Awesome Movie", 9.0),
+                new Review(null, 1L, "Awesome Movie1", 8.0),
+                new Review(null, 2L, "Excellent Movie", 7.0));
+
+        var published = reviewPublisher.asFlux()
+                .map(Review::getReviewId)
+                .take(2)
+                .collectList()
+                .toFuture();
+
+        StepVerifier.create(reviewBulkService.addReviews(reviews))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        // a review que falhou na gravação não chega ao stream
+        assertEquals(List.of("id-Awesome Movie", "id-Excellent Movie"), published.join());
+    }
+
+}
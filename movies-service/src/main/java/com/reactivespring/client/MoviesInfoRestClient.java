@@ -0,0 +1,102 @@
+package com.reactivespring.client;
+
+import com.reactivespring.config.UpstreamProperties;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.Optional;
+
+@Component
+public class MoviesInfoRestClient {
+
+    private final WebClient webClient;
+
+    private final UpstreamProperties properties;
+
+    private final Retry retry;
+
+    private final UpstreamRetry upstreamRetry;
+
+    private final UpstreamHedging upstreamHedging;
+
+    @Autowired
+    public MoviesInfoRestClient(final WebClient webClient,
+                                final UpstreamProperties properties,
+                                final UpstreamRetry upstreamRetry,
+                                final UpstreamHedging upstreamHedging) {
+        this.webClient = webClient;
+        this.properties = properties;
+        this.upstreamRetry = upstreamRetry;
+        this.upstreamHedging = upstreamHedging;
+        this.retry = upstreamRetry.serverErrors(UpstreamResilience.MOVIES_INFO, MoviesInfoServerException.class::isInstance);
+    }
+
+    /**
+     * Cada tentativa pode ser duplicada pelo hedging; o retry vale para o par.
+     */
+    public Mono<MovieInfo> retrieveMovieInfo(final String movieId) {
+
+        final Mono<MovieInfo> movieInfo = webClient.get()
+                .uri(properties.getMoviesInfoUrl() + "/{id}", movieId)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
+                    if (clientResponse.statusCode() == HttpStatus.NOT_FOUND) {
+                        return Mono.error(new MoviesInfoClientException(
+                                "There is no MovieInfo available for the passed in Id : " + movieId,
+                                clientResponse.rawStatusCode()));
+                    }
+                    return clientResponse.bodyToMono(String.class)
+                            .defaultIfEmpty(clientResponse.statusCode().getReasonPhrase())
+                            .flatMap(message -> Mono.error(new MoviesInfoClientException(message,
+                                    clientResponse.rawStatusCode())));
+                })
+                .onStatus(HttpStatus::is5xxServerError, clientResponse -> clientResponse.bodyToMono(String.class)
+                        .defaultIfEmpty(clientResponse.statusCode().getReasonPhrase())
+                        .flatMap(message -> Mono.error(new MoviesInfoServerException(
+                                "Server Exception in MoviesInfoService " + message))))
+                .bodyToMono(MovieInfo.class);
+
+        return upstreamHedging.hedge(UpstreamResilience.MOVIES_INFO, movieInfo)
+                .retryWhen(retry)
+                .doOnSubscribe(subscription -> upstreamRetry.recordRequest());
+    }
+
+    /**
+     * Catálogo inteiro, ou de um ano, como NDJSON. O movies-info-service lê
+     * o MongoDB em páginas de pageSize conforme o stream é consumido. Sem
+     * retry: repetir a requisição recomeçaria o catálogo do início.
+     */
+    public Flux<MovieInfo> streamMovieInfos(final Integer year, final int pageSize) {
+
+        final String uri = UriComponentsBuilder.fromHttpUrl(properties.getMoviesInfoUrl())
+                .queryParamIfPresent("year", Optional.ofNullable(year))
+                .queryParam("size", pageSize)
+                .toUriString();
+
+        return webClient.get()
+                .uri(uri)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, clientResponse -> clientResponse.bodyToMono(String.class)
+                        .defaultIfEmpty(clientResponse.statusCode().getReasonPhrase())
+                        .flatMap(message -> Mono.error(new MoviesInfoClientException(message,
+                                clientResponse.rawStatusCode()))))
+                .onStatus(HttpStatus::is5xxServerError, clientResponse -> clientResponse.bodyToMono(String.class)
+                        .defaultIfEmpty(clientResponse.statusCode().getReasonPhrase())
+                        .flatMap(message -> Mono.error(new MoviesInfoServerException(
+                                "Server Exception in MoviesInfoService " + message))))
+                .bodyToFlux(MovieInfo.class);
+    }
+
+}
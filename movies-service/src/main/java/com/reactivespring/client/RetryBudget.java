@@ -0,0 +1,65 @@
+package com.reactivespring.client;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Orçamento de retries compartilhado: cada requisição original deposita
+ * ratio e cada retry consome 1. Além disso o saldo cresce minPerSecond por
+ * segundo. Quando um upstream falha para todo mundo, o saldo acaba e as
+ * falhas passam a ser devolvidas na hora ao invés de multiplicar a carga.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+
+    private final double minPerSecond;
+
+    private final double maxBalance;
+
+    private final LongSupplier nanoTime;
+
+    private double balance;
+
+    private long lastRefill;
+
+    public RetryBudget(final double ratio, final double minPerSecond, final double maxBalance,
+                       final LongSupplier nanoTime) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.maxBalance = maxBalance;
+        this.nanoTime = nanoTime;
+        this.balance = maxBalance;
+        this.lastRefill = nanoTime.getAsLong();
+    }
+
+    public synchronized void deposit() {
+        refill();
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    public synchronized boolean tryWithdraw() {
+
+        refill();
+
+        // tolera o erro de arredondamento de somar ratio várias vezes
+        if (balance < 1 - 1e-9) {
+            return false;
+        }
+
+        balance = Math.max(0, balance - 1);
+        return true;
+    }
+
+    public synchronized double balance() {
+        refill();
+        return balance;
+    }
+
+    private void refill() {
+
+        final long now = nanoTime.getAsLong();
+        balance = Math.min(maxBalance, balance + (now - lastRefill) / 1e9 * minPerSecond);
+        lastRefill = now;
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.reactivespring.client;
+
+import com.reactivespring.config.UpstreamProperties;
+import com.reactivespring.domain.MovieInfoReviews;
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.ReviewsClientException;
+import com.reactivespring.exception.ReviewsServerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+@Component
+public class ReviewsRestClient {
+
+    private final WebClient webClient;
+
+    private final UpstreamProperties properties;
+
+    private final Retry retry;
+
+    private final UpstreamRetry upstreamRetry;
+
+    private final UpstreamHedging upstreamHedging;
+
+    @Autowired
+    public ReviewsRestClient(final WebClient webClient,
+                             final UpstreamProperties properties,
+                             final UpstreamRetry upstreamRetry,
+                             final UpstreamHedging upstreamHedging) {
+        this.webClient = webClient;
+        this.properties = properties;
+        this.upstreamRetry = upstreamRetry;
+        this.upstreamHedging = upstreamHedging;
+        this.retry = upstreamRetry.serverErrors(UpstreamResilience.REVIEWS, ReviewsServerException.class::isInstance);
+    }
+
+    /**
+     * Um filme sem reviews não é um erro: o 404 do movies-review-service vira
+     * um Flux vazio. Com hedging, vale a tentativa que entregar a primeira
+     * review.
+     */
+    public Flux<Review> retrieveReviews(final String movieId) {
+
+        final Flux<Review> reviews = webClient.get()
+                .uri(properties.getReviewsUrl() + "?movieInfoId={movieInfoId}", movieId)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToFlux(clientResponse -> {
+                    if (clientResponse.statusCode() == HttpStatus.NOT_FOUND) {
+                        return clientResponse.releaseBody().thenMany(Flux.empty());
+                    }
+                    if (clientResponse.statusCode().is4xxClientError()) {
+                        return clientResponse.bodyToMono(String.class)
+                                .defaultIfEmpty(clientResponse.statusCode().getReasonPhrase())
+                                .flatMapMany(message -> Flux.error(new ReviewsClientException(message)));
+                    }
+                    if (clientResponse.statusCode().is5xxServerError()) {
+                        return clientResponse.bodyToMono(String.class)
+                                .defaultIfEmpty(clientResponse.statusCode().getReasonPhrase())
+                                .flatMapMany(message -> Flux.error(new ReviewsServerException(
+                                        "Server Exception in ReviewsService " + message)));
+                    }
+                    return clientResponse.bodyToFlux(Review.class);
+                });
+
+        return upstreamHedging.hedge(UpstreamResilience.REVIEWS, reviews)
+                .retryWhen(retry)
+                .doOnSubscribe(subscription -> upstreamRetry.recordRequest());
+    }
+
+    /**
+     * Até limit reviews de cada filme pedido, em uma única requisição. Filmes
+     * sem reviews vêm com a lista vazia.
+     */
+    public Flux<MovieInfoReviews> retrieveReviews(final Collection<Long> movieInfoIds, final int limit) {
+
+        final String ids = movieInfoIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        return webClient.get()
+                .uri(properties.getReviewsUrl() + "/batch?movieInfoIds={movieInfoIds}&limit={limit}", ids, limit)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, clientResponse -> clientResponse.bodyToMono(String.class)
+                        .defaultIfEmpty(clientResponse.statusCode().getReasonPhrase())
+                        .flatMap(message -> Mono.error(new ReviewsClientException(message))))
+                .onStatus(HttpStatus::is5xxServerError, clientResponse -> clientResponse.bodyToMono(String.class)
+                        .defaultIfEmpty(clientResponse.statusCode().getReasonPhrase())
+                        .flatMap(message -> Mono.error(new ReviewsServerException(
+                                "Server Exception in ReviewsService " + message))))
+                .bodyToFlux(MovieInfoReviews.class)
+                .retryWhen(retry)
+                .doOnSubscribe(subscription -> upstreamRetry.recordRequest());
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.reactivespring.client;
+
+import com.reactivespring.config.UpstreamProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hedging de leituras idempotentes: se a requisição não deu nenhum sinal
+ * dentro do percentil configurado da latência recente do upstream, uma
+ * segunda requisição idêntica é enviada. Vale a que responder primeiro e a
+ * outra é cancelada. As segundas requisições saem de um RetryBudget próprio,
+ * então a carga extra fica limitada mesmo com o upstream todo lento.
+ *
+ * <p>Erros sempre vêm da requisição original; uma segunda requisição que
+ * falha é ignorada.
+ */
+@Component
+public class UpstreamHedging {
+
+    private final UpstreamProperties.Hedge properties;
+
+    private final RetryBudget hedgeBudget;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, HedgeMeters> meters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UpstreamHedging(final UpstreamProperties properties,
+                           final MeterRegistry meterRegistry) {
+        this.properties = properties.getHedge();
+        this.meterRegistry = meterRegistry;
+        this.hedgeBudget = new RetryBudget(this.properties.getBudgetRatio(),
+                this.properties.getBudgetMinHedgesPerSecond(), this.properties.getBudgetMaxHedges(), System::nanoTime);
+
+        Gauge.builder("movies.upstream.hedge.budget", hedgeBudget, RetryBudget::balance)
+                .description("Hedged requests still available in the hedge budget")
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> hedge(final String upstream, final Mono<T> attempt) {
+
+        if (!properties.isEnabled()) {
+            return attempt;
+        }
+
+        return hedge(upstream, attempt.flux()).singleOrEmpty();
+    }
+
+    /**
+     * Para um Flux, vence a requisição que emitir o primeiro elemento; dali em
+     * diante o stream segue só com ela.
+     */
+    public <T> Flux<T> hedge(final String upstream, final Flux<T> attempt) {
+
+        if (!properties.isEnabled()) {
+            return attempt;
+        }
+
+        final HedgeMeters upstreamMeters = meters.computeIfAbsent(upstream, this::hedgeMeters);
+        final Timer latency = upstreamMeters.latency;
+
+        return Flux.defer(() -> {
+            hedgeBudget.deposit();
+
+            final Flux<T> hedged = Mono.delay(hedgeDelay(latency))
+                    .flatMapMany(tick -> {
+                        if (!hedgeBudget.tryWithdraw()) {
+                            upstreamMeters.budgetExhausted.increment();
+                            return Flux.never();
+                        }
+                        upstreamMeters.sent.increment();
+                        return timed(attempt, latency)
+                                // um erro antes do primeiro elemento não decide nada
+                                .switchOnFirst((signal, flux) -> {
+                                    if (signal.isOnError()) {
+                                        return Flux.never();
+                                    }
+                                    upstreamMeters.won.increment();
+                                    return flux;
+                                });
+                    });
+
+            return Flux.firstWithSignal(timed(attempt, latency), hedged);
+        });
+    }
+
+    /**
+     * Mede até o primeiro elemento, ou até o fim de uma resposta vazia. Uma
+     * requisição cancelada por ter perdido não é medida: o tempo até o
+     * cancelamento é menor que a latência real e puxaria o percentil para
+     * baixo, disparando ainda mais hedges. Erros também ficam de fora.
+     */
+    private static <T> Flux<T> timed(final Flux<T> attempt, final Timer latency) {
+
+        return Flux.defer(() -> {
+            final long start = System.nanoTime();
+            final AtomicBoolean recorded = new AtomicBoolean();
+
+            return attempt.doOnEach(signal -> {
+                if ((signal.isOnNext() || signal.isOnComplete()) && recorded.compareAndSet(false, true)) {
+                    latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        });
+    }
+
+    private Duration hedgeDelay(final Timer latency) {
+
+        if (latency.count() < properties.getMinSamples()) {
+            return properties.getMaxDelay();
+        }
+
+        final ValueAtPercentile[] percentiles = latency.takeSnapshot().percentileValues();
+        if (percentiles.length == 0) {
+            return properties.getMaxDelay();
+        }
+
+        final long nanos = (long) percentiles[0].value(TimeUnit.NANOSECONDS);
+        return Duration.ofNanos(Math.max(properties.getMinDelay().toNanos(),
+                Math.min(nanos, properties.getMaxDelay().toNanos())));
+    }
+
+    /**
+     * O percentil considera só os últimos minutos, para acompanhar mudanças
+     * na latência do upstream.
+     */
+    private HedgeMeters hedgeMeters(final String upstream) {
+
+        final Timer latency = Timer.builder("movies.upstream.hedge.latency")
+                .description("Time to first response of the upstream attempts that answered")
+                .tag("upstream", upstream)
+                .publishPercentiles(properties.getPercentile())
+                .distributionStatisticExpiry(Duration.ofMinutes(2))
+                .distributionStatisticBufferLength(4)
+                .register(meterRegistry);
+
+        return new HedgeMeters(latency, hedgeCounter(upstream, "sent"), hedgeCounter(upstream, "won"),
+                hedgeCounter(upstream, "budget_exhausted"));
+    }
+
+    private Counter hedgeCounter(final String upstream, final String outcome) {
+
+        return Counter.builder("movies.upstream.hedges")
+                .tag("upstream", upstream)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static class HedgeMeters {
+
+        private final Timer latency;
+
+        private final Counter sent;
+
+        private final Counter won;
+
+        private final Counter budgetExhausted;
+
+        private HedgeMeters(final Timer latency, final Counter sent, final Counter won, final Counter budgetExhausted) {
+            this.latency = latency;
+            this.sent = sent;
+            this.won = won;
+            this.budgetExhausted = budgetExhausted;
+        }
+
+    }
+
+}
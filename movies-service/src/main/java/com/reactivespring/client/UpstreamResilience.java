@@ -0,0 +1,109 @@
+package com.reactivespring.client;
+
+import com.reactivespring.config.UpstreamProperties;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.ReviewsClientException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker e bulkhead de cada upstream. O bulkhead limita quantas
+ * chamadas podem estar pendentes ao mesmo tempo; o circuit breaker deixa de
+ * chamar o upstream enquanto a taxa de falhas ou de chamadas lentas estiver
+ * alta. Nos dois casos a chamada falha na hora, com CallNotPermittedException
+ * ou BulkheadFullException.
+ */
+@Slf4j
+@Component
+public class UpstreamResilience {
+
+    public static final String MOVIES_INFO = "movies-info";
+
+    public static final String REVIEWS = "reviews";
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    @Autowired
+    public UpstreamResilience(final UpstreamProperties properties,
+                              final MeterRegistry meterRegistry) {
+
+        final UpstreamProperties.CircuitBreaker circuitBreaker = properties.getCircuitBreaker();
+
+        this.circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(circuitBreaker.getSlidingWindowSize())
+                .minimumNumberOfCalls(circuitBreaker.getMinimumNumberOfCalls())
+                .failureRateThreshold(circuitBreaker.getFailureRateThreshold())
+                .slowCallRateThreshold(circuitBreaker.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(circuitBreaker.getSlowCallDurationThreshold())
+                .waitDurationInOpenState(circuitBreaker.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(circuitBreaker.getPermittedNumberOfCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // um 4xx é erro de quem chamou, o upstream está respondendo normalmente
+                .ignoreExceptions(MoviesInfoClientException.class, ReviewsClientException.class)
+                .build());
+
+        this.bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getBulkhead().getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+
+        for (String upstream : new String[]{MOVIES_INFO, REVIEWS}) {
+            circuitBreakerRegistry.circuitBreaker(upstream)
+                    .getEventPublisher()
+                    .onStateTransition(event -> {
+                        log.warn("Circuit breaker {} changed: {}", upstream, event.getStateTransition());
+                        Counter.builder("movies.upstream.circuitbreaker.transitions")
+                                .tag("upstream", upstream)
+                                .tag("from", event.getStateTransition().getFromState().name())
+                                .tag("to", event.getStateTransition().getToState().name())
+                                .register(meterRegistry)
+                                .increment();
+                    });
+            bulkheadRegistry.bulkhead(upstream);
+        }
+    }
+
+    public <T> Mono<T> protect(final String upstream, final Mono<T> call) {
+
+        return call.transformDeferred(BulkheadOperator.of(bulkhead(upstream)))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker(upstream)));
+    }
+
+    public <T> Flux<T> protect(final String upstream, final Flux<T> call) {
+
+        return call.transformDeferred(BulkheadOperator.of(bulkhead(upstream)))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker(upstream)));
+    }
+
+    public CircuitBreaker circuitBreaker(final String upstream) {
+        return circuitBreakerRegistry.circuitBreaker(upstream);
+    }
+
+    public Bulkhead bulkhead(final String upstream) {
+        return bulkheadRegistry.bulkhead(upstream);
+    }
+
+}
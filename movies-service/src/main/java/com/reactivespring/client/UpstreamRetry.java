@@ -0,0 +1,81 @@
+package com.reactivespring.client;
+
+import com.reactivespring.config.UpstreamProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.util.retry.Retry;
+
+import java.util.function.Predicate;
+
+/**
+ * Política de retry dos clients: backoff exponencial com jitter, apenas para
+ * erros de servidor e limitada por um RetryBudget único para todos os
+ * upstreams.
+ */
+@Slf4j
+@Component
+public class UpstreamRetry {
+
+    private final UpstreamProperties.Retry properties;
+
+    private final RetryBudget retryBudget;
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public UpstreamRetry(final UpstreamProperties properties,
+                         final MeterRegistry meterRegistry) {
+        this.properties = properties.getRetry();
+        this.meterRegistry = meterRegistry;
+        this.retryBudget = new RetryBudget(this.properties.getBudgetRatio(),
+                this.properties.getBudgetMinRetriesPerSecond(), this.properties.getBudgetMaxRetries(), System::nanoTime);
+
+        Gauge.builder("movies.upstream.retry.budget", retryBudget, RetryBudget::balance)
+                .description("Retries still available in the shared retry budget")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deve ser chamado uma vez por requisição original, não por tentativa.
+     */
+    public void recordRequest() {
+        retryBudget.deposit();
+    }
+
+    public Retry serverErrors(final String upstream, final Predicate<Throwable> isServerError) {
+
+        final Counter retried = retryCounter(upstream, "retried");
+        final Counter budgetExhausted = retryCounter(upstream, "budget_exhausted");
+
+        return Retry.backoff(properties.getMaxAttempts(), properties.getMinBackoff())
+                .maxBackoff(properties.getMaxBackoff())
+                .jitter(properties.getJitter())
+                .filter(ex -> {
+                    if (!isServerError.test(ex)) {
+                        return false;
+                    }
+                    if (!retryBudget.tryWithdraw()) {
+                        budgetExhausted.increment();
+                        log.warn("Retry budget exhausted, not retrying {}: {}", upstream, ex.getMessage());
+                        return false;
+                    }
+                    retried.increment();
+                    return true;
+                })
+                // a exceção original segue para quem chamou, não um RetryExhaustedException
+                .onRetryExhaustedThrow((retrySpec, retrySignal) -> retrySignal.failure());
+    }
+
+    private Counter retryCounter(final String upstream, final String outcome) {
+
+        return Counter.builder("movies.upstream.retries")
+                .tag("upstream", upstream)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+}
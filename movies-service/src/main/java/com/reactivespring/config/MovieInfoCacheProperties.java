@@ -0,0 +1,52 @@
+package com.reactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "movies.cache.movie-info")
+public class MovieInfoCacheProperties {
+
+    /**
+     * Quantidade máxima de MovieInfo mantidos na memória do processo.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Idade a partir da qual um MovieInfo é atualizado no movies-info-service.
+     * A atualização acontece em segundo plano e, enquanto isso, a versão
+     * antiga continua sendo servida.
+     */
+    private Duration refreshAfter = Duration.ofMinutes(1);
+
+    /**
+     * Idade máxima de um MovieInfo em memória. Com o movies-info-service fora
+     * do ar as atualizações falham e a versão antiga é servida até aqui.
+     */
+    private Duration expireAfter = Duration.ofMinutes(30);
+
+    private final OffHeap offHeap = new OffHeap();
+
+    @Data
+    public static class OffHeap {
+
+        /**
+         * Guarda uma cópia serializada de cada MovieInfo fora do heap, usada
+         * quando o movies-info-service falha e o MovieInfo não está mais em
+         * memória.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Espaço máximo ocupado pelas cópias fora do heap.
+         */
+        private DataSize maximumSize = DataSize.ofMegabytes(64);
+
+        private Duration expireAfter = Duration.ofHours(24);
+
+    }
+
+}
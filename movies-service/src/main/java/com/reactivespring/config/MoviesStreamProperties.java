@@ -0,0 +1,40 @@
+package com.reactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "movies.stream")
+public class MoviesStreamProperties {
+
+    /**
+     * Tamanho das páginas que o movies-info-service lê do MongoDB ao
+     * montar o stream do catálogo.
+     */
+    private int moviesInfoPageSize = 500;
+
+    /**
+     * Filmes por consulta em lote ao movies-review-service.
+     */
+    private int batchSize = 100;
+
+    /**
+     * Lotes buscando reviews ao mesmo tempo. Junto com batchSize, limita
+     * quantos Movie ficam em memória, independente do tamanho do catálogo.
+     */
+    private int concurrency = 4;
+
+    /**
+     * Máximo de reviews de cada filme no stream.
+     */
+    private int reviewsPerMovie = 10;
+
+    /**
+     * Tempo máximo esperando as reviews de um lote. Ao estourar, os filmes
+     * do lote seguem com as reviews recebidas até ali.
+     */
+    private Duration reviewsTimeout = Duration.ofSeconds(5);
+
+}
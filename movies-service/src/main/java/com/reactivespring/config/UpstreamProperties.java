@@ -0,0 +1,191 @@
+package com.reactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "movies.upstream")
+public class UpstreamProperties {
+
+    private String moviesInfoUrl = "http://localhost:8080/v1/movies-info";
+
+    private String reviewsUrl = "http://localhost:8081/v1/reviews";
+
+    /**
+     * Tempo máximo de cada chamada ao movies-info-service.
+     */
+    private Duration moviesInfoTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Tempo máximo esperando as reviews de um filme. Ao estourar, o Movie é
+     * montado com as reviews recebidas até ali.
+     */
+    private Duration reviewsTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Pool de conexões compartilhado pelos clients do movies-info-service e
+     * do movies-review-service.
+     */
+    private final Pool pool = new Pool();
+
+    private final Retry retry = new Retry();
+
+    private final Hedge hedge = new Hedge();
+
+    /**
+     * Aplicado separadamente a cada upstream: um circuit breaker aberto para
+     * as reviews não afeta as chamadas ao movies-info-service.
+     */
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private final Bulkhead bulkhead = new Bulkhead();
+
+    @Data
+    public static class Pool {
+
+        /**
+         * Conexões abertas ao mesmo tempo, somando todos os upstreams.
+         */
+        private int maxConnections = 500;
+
+        /**
+         * Requisições aguardando uma conexão livre. Acima disso a requisição
+         * falha na hora ao invés de entrar na fila.
+         */
+        private int pendingAcquireMaxCount = 1000;
+
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Conexões ociosas por mais tempo que isso são fechadas.
+         */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        /**
+         * Intervalo da remoção de conexões ociosas ou expiradas em background.
+         */
+        private Duration evictionInterval = Duration.ofSeconds(30);
+
+    }
+
+    @Data
+    public static class Retry {
+
+        /**
+         * Novas tentativas depois da primeira, apenas para erros 5xx.
+         */
+        private int maxAttempts = 2;
+
+        private Duration minBackoff = Duration.ofMillis(50);
+
+        private Duration maxBackoff = Duration.ofMillis(500);
+
+        /**
+         * Fração do backoff sorteada a cada tentativa, para que clientes que
+         * falharam juntos não tentem de novo ao mesmo tempo.
+         */
+        private double jitter = 0.5;
+
+        /**
+         * Retries permitidos por requisição original, somando todos os
+         * upstreams. 0.1 limita os retries a 10% do tráfego.
+         */
+        private double budgetRatio = 0.1;
+
+        /**
+         * Retries sempre permitidos por segundo, para que um tráfego baixo
+         * ainda consiga tentar de novo.
+         */
+        private int budgetMinRetriesPerSecond = 10;
+
+        /**
+         * Máximo de retries acumulados no orçamento.
+         */
+        private int budgetMaxRetries = 100;
+
+    }
+
+    @Data
+    public static class Hedge {
+
+        /**
+         * Quando ligado, uma leitura que demora mais que o percentil abaixo
+         * ganha uma segunda requisição idêntica e vale a resposta que chegar
+         * primeiro.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Percentil da latência recente de cada upstream usado como espera
+         * antes da segunda requisição.
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Respostas necessárias antes de confiar no percentil. Até lá a espera
+         * é maxDelay.
+         */
+        private long minSamples = 100;
+
+        private Duration minDelay = Duration.ofMillis(10);
+
+        private Duration maxDelay = Duration.ofMillis(500);
+
+        /**
+         * Segundas requisições permitidas por leitura, somando todos os
+         * upstreams. 0.05 limita a carga extra a 5%.
+         */
+        private double budgetRatio = 0.05;
+
+        private int budgetMinHedgesPerSecond = 5;
+
+        private int budgetMaxHedges = 50;
+
+    }
+
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * Quantidade das últimas chamadas usada para calcular as taxas.
+         */
+        private int slidingWindowSize = 50;
+
+        /**
+         * Chamadas necessárias na janela antes que o circuito possa abrir.
+         */
+        private int minimumNumberOfCalls = 20;
+
+        private float failureRateThreshold = 50;
+
+        private float slowCallRateThreshold = 80;
+
+        private Duration slowCallDurationThreshold = Duration.ofMillis(800);
+
+        /**
+         * Tempo com o circuito aberto antes de liberar as chamadas de teste.
+         */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+        private int permittedNumberOfCallsInHalfOpenState = 5;
+
+    }
+
+    @Data
+    public static class Bulkhead {
+
+        /**
+         * Chamadas simultâneas por upstream. Acima disso a chamada falha na
+         * hora ao invés de esperar.
+         */
+        private int maxConcurrentCalls = 200;
+
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.reactivespring.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+@Configuration
+public class WebClientConfig {
+
+    /**
+     * Com metrics habilitado o Reactor Netty publica no Micrometer as
+     * conexões ativas, ociosas e pendentes do pool
+     * (reactor.netty.connection.provider.*).
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider upstreamConnectionProvider(final UpstreamProperties properties) {
+
+        final UpstreamProperties.Pool pool = properties.getPool();
+
+        return ConnectionProvider.builder("movies-upstream")
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .evictInBackground(pool.getEvictionInterval())
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient webClient(final WebClient.Builder builder,
+                               final ConnectionProvider upstreamConnectionProvider,
+                               final UpstreamProperties properties) {
+
+        final HttpClient httpClient = HttpClient.create(upstreamConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        (int) properties.getPool().getConnectTimeout().toMillis());
+
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+}
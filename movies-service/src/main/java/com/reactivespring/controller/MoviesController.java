@@ -0,0 +1,41 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.domain.Movie;
+import com.reactivespring.service.MoviesService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/v1/movies")
+public class MoviesController {
+
+    private final MoviesService moviesService;
+
+    @Autowired
+    public MoviesController(final MoviesService moviesService) {
+        this.moviesService = moviesService;
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Movie> retrieveMovieById(@PathVariable("id") String movieId) {
+
+        return moviesService.retrieveMovieById(movieId);
+    }
+
+    /**
+     * Cada Movie é escrito assim que fica pronto, uma linha por filme.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Movie> streamMovies(@RequestParam(value = "year", required = false) Integer year) {
+
+        return moviesService.streamMovies(year);
+    }
+
+}
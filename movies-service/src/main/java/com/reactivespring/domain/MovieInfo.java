@@ -1,6 +1,7 @@
 package com.reactivespring.domain;
 
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,8 +18,11 @@ import java.util.List;
 @AllArgsConstructor
 @Validated
 public class MovieInfo {
+    // o movies-info-service publica os campos como id, title e releasedAt
+    @JsonAlias("id")
     private String movieInfoId;
     @NotBlank(message = "movieInfo.name must be present")
+    @JsonAlias("title")
     private String name;
     @NotNull
     @Positive(message = "movieInfo.year must be a Positive Value")
@@ -26,5 +30,6 @@ public class MovieInfo {
 
     @NotNull
     private List<@NotBlank(message = "movieInfo.cast must be present") String> cast;
+    @JsonAlias("releasedAt")
     private LocalDate release_date;
 }
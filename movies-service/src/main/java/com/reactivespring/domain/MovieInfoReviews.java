@@ -0,0 +1,19 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Reviews de um filme na resposta da busca em lote do movies-review-service.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoReviews {
+
+    private Long movieInfoId;
+    private List<Review> reviews;
+}
@@ -0,0 +1,57 @@
+package com.reactivespring.exceptionhandler;
+
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.exception.ReviewsClientException;
+import com.reactivespring.exception.ReviewsServerException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+@ControllerAdvice
+@Slf4j
+public class GlobalErrorHandler {
+
+    // o status do movies-info-service é repassado, um id inexistente continua sendo 404
+    @ExceptionHandler(MoviesInfoClientException.class)
+    public ResponseEntity<String> handleMoviesInfoClientException(MoviesInfoClientException ex) {
+
+        log.error("Exception caught in handleMoviesInfoClientException: {}", ex.getMessage(), ex);
+
+        return ResponseEntity.status(ex.getStatusCode())
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler({MoviesInfoServerException.class, ReviewsServerException.class})
+    public ResponseEntity<String> handleServerException(RuntimeException ex) {
+
+        log.error("Exception caught in handleServerException: {}", ex.getMessage(), ex);
+
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ReviewsClientException.class)
+    public ResponseEntity<String> handleReviewsClientException(ReviewsClientException ex) {
+
+        log.error("Exception caught in handleReviewsClientException: {}", ex.getMessage(), ex);
+
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ex.getMessage());
+    }
+
+    // circuit breaker aberto ou bulkhead cheio: o upstream não foi chamado
+    @ExceptionHandler({CallNotPermittedException.class, BulkheadFullException.class})
+    public ResponseEntity<String> handleUpstreamUnavailable(RuntimeException ex) {
+
+        log.error("Exception caught in handleUpstreamUnavailable: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ex.getMessage());
+    }
+
+}
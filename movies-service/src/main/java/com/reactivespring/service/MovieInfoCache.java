@@ -0,0 +1,218 @@
+package com.reactivespring.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.reactivespring.client.MoviesInfoRestClient;
+import com.reactivespring.client.UpstreamResilience;
+import com.reactivespring.config.MovieInfoCacheProperties;
+import com.reactivespring.config.UpstreamProperties;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * MovieInfo por id com stale-while-revalidate. Um MovieInfo mais velho que
+ * refreshAfter continua sendo servido enquanto é buscado de novo em segundo
+ * plano; se a busca falhar, a versão antiga fica até expireAfter. Buscas
+ * concorrentes pelo mesmo id compartilham a mesma ida ao movies-info-service.
+ *
+ * <p>Opcionalmente mantém uma segunda camada, fora do heap, com o JSON de cada
+ * MovieInfo carregado. Ela comporta um catálogo bem maior que a primeira e só
+ * é lida quando o movies-info-service falha.
+ */
+@Slf4j
+@Component
+public class MovieInfoCache {
+
+    private final MoviesInfoRestClient moviesInfoRestClient;
+
+    private final UpstreamProperties upstreamProperties;
+
+    private final UpstreamResilience upstreamResilience;
+
+    private final ObjectMapper objectMapper;
+
+    private final AsyncLoadingCache<String, MovieInfo> cache;
+
+    // null quando a camada fora do heap está desligada
+    private final Cache<String, ByteBuffer> offHeap;
+
+    @Autowired
+    public MovieInfoCache(final MoviesInfoRestClient moviesInfoRestClient,
+                          final UpstreamProperties upstreamProperties,
+                          final UpstreamResilience upstreamResilience,
+                          final MovieInfoCacheProperties properties,
+                          final ObjectMapper objectMapper,
+                          final MeterRegistry meterRegistry) {
+        this(moviesInfoRestClient, upstreamProperties, upstreamResilience, properties, objectMapper, meterRegistry,
+                Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    MovieInfoCache(final MoviesInfoRestClient moviesInfoRestClient,
+                   final UpstreamProperties upstreamProperties,
+                   final UpstreamResilience upstreamResilience,
+                   final MovieInfoCacheProperties properties,
+                   final ObjectMapper objectMapper,
+                   final MeterRegistry meterRegistry,
+                   final Ticker ticker,
+                   final Executor executor) {
+        this.moviesInfoRestClient = moviesInfoRestClient;
+        this.upstreamProperties = upstreamProperties;
+        this.upstreamResilience = upstreamResilience;
+        this.objectMapper = objectMapper;
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .refreshAfterWrite(properties.getRefreshAfter())
+                .expireAfterWrite(properties.getExpireAfter())
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .buildAsync(new MovieInfoLoader());
+
+        // hits, misses e evictions ficam disponíveis como cache.gets, cache.evictions...
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "movieInfo");
+
+        final MovieInfoCacheProperties.OffHeap offHeapProperties = properties.getOffHeap();
+        if (offHeapProperties.isEnabled()) {
+            this.offHeap = Caffeine.newBuilder()
+                    .maximumWeight(offHeapProperties.getMaximumSize().toBytes())
+                    .weigher((String movieId, ByteBuffer json) -> json.capacity())
+                    .expireAfterWrite(offHeapProperties.getExpireAfter())
+                    .ticker(ticker)
+                    .executor(executor)
+                    .build();
+
+            Gauge.builder("movies.cache.movie-info.off-heap.size", offHeap,
+                            copies -> copies.policy().eviction()
+                                    .map(eviction -> eviction.weightedSize().orElse(0L))
+                                    .orElse(0L))
+                    .description("Bytes held outside the heap by the MovieInfo fallback copies")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        } else {
+            this.offHeap = null;
+        }
+    }
+
+    public Mono<MovieInfo> get(final String movieId) {
+
+        return Mono.fromFuture(() -> cache.get(movieId));
+    }
+
+    void invalidateAll() {
+
+        cache.synchronous().invalidateAll();
+        if (offHeap != null) {
+            offHeap.invalidateAll();
+        }
+    }
+
+    /**
+     * O timeout fica dentro do circuit breaker, então chamadas que estouram o
+     * tempo contam como falha para ele. Um 4xx é uma resposta do
+     * movies-info-service e é propagado; só falhas do upstream caem na cópia
+     * fora do heap.
+     *
+     */
+    private Mono<MovieInfo> load(final String movieId) {
+
+        final Mono<MovieInfo> movieInfo = moviesInfoRestClient.retrieveMovieInfo(movieId)
+                .name(MoviesService.UPSTREAM_METRICS).tag("upstream", UpstreamResilience.MOVIES_INFO)
+                .tag("operation", "retrieveMovieInfo").metrics()
+                .timeout(upstreamProperties.getMoviesInfoTimeout())
+                .onErrorMap(TimeoutException.class, ex -> new MoviesInfoServerException(
+                        "MoviesInfoService did not answer within " + upstreamProperties.getMoviesInfoTimeout()));
+
+        if (offHeap == null) {
+            return upstreamResilience.protect(UpstreamResilience.MOVIES_INFO, movieInfo);
+        }
+
+        return upstreamResilience.protect(UpstreamResilience.MOVIES_INFO, movieInfo)
+                .doOnNext(loaded -> writeOffHeap(movieId, loaded))
+                .doOnError(MoviesInfoClientException.class, ex -> offHeap.invalidate(movieId))
+                .onErrorResume(ex -> !(ex instanceof MoviesInfoClientException), ex -> {
+                    final MovieInfo stale = readOffHeap(movieId);
+                    if (stale == null) {
+                        return Mono.error(ex);
+                    }
+                    log.warn("Serving MovieInfo {} from the off-heap copy: {}", movieId, ex.getMessage());
+                    return Mono.just(stale);
+                });
+    }
+
+    /**
+     * Um refresh que falha mantém a versão antiga em memória. Para um 4xx,
+     * um filme removido por exemplo, isso não vale: o refresh termina em null,
+     * o que faz o Caffeine remover a entrada, e o próximo get já vê o erro.
+     */
+    private class MovieInfoLoader implements AsyncCacheLoader<String, MovieInfo> {
+
+        @Override
+        public CompletableFuture<MovieInfo> asyncLoad(final String movieId, final Executor loaderExecutor) {
+            return load(movieId).toFuture();
+        }
+
+        @Override
+        public CompletableFuture<MovieInfo> asyncReload(final String movieId, final MovieInfo oldMovieInfo,
+                                                        final Executor loaderExecutor) {
+            return load(movieId)
+                    .onErrorResume(MoviesInfoClientException.class, ex -> Mono.empty())
+                    .toFuture();
+        }
+
+    }
+
+    /**
+     * A memória de um buffer direto é liberada quando ele é coletado, depois
+     * de sair da camada.
+     */
+    private void writeOffHeap(final String movieId, final MovieInfo movieInfo) {
+
+        try {
+            final byte[] json = objectMapper.writeValueAsBytes(movieInfo);
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(json.length);
+            buffer.put(json).flip();
+            offHeap.put(movieId, buffer);
+        } catch (IOException ex) {
+            log.warn("MovieInfo {} was not copied off-heap: {}", movieId, ex.getMessage());
+        }
+    }
+
+    private MovieInfo readOffHeap(final String movieId) {
+
+        final ByteBuffer buffer = offHeap.getIfPresent(movieId);
+        if (buffer == null) {
+            return null;
+        }
+
+        // duplicate() para leituras concorrentes não disputarem a posição do buffer
+        final byte[] json = new byte[buffer.capacity()];
+        buffer.duplicate().get(json);
+        try {
+            return objectMapper.readValue(json, MovieInfo.class);
+        } catch (IOException ex) {
+            log.warn("Off-heap copy of MovieInfo {} is unreadable: {}", movieId, ex.getMessage());
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.reactivespring.service;
+
+import com.reactivespring.client.MoviesInfoRestClient;
+import com.reactivespring.client.ReviewsRestClient;
+import com.reactivespring.client.UpstreamResilience;
+import com.reactivespring.config.MoviesStreamProperties;
+import com.reactivespring.config.UpstreamProperties;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoReviews;
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.ReviewsClientException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class MoviesService {
+
+    /**
+     * Nome das métricas do Reactor das chamadas aos upstreams; as tags
+     * upstream e operation separam cada chamada.
+     */
+    static final String UPSTREAM_METRICS = "movies.upstream";
+
+    private final MovieInfoCache movieInfoCache;
+
+    private final MoviesInfoRestClient moviesInfoRestClient;
+
+    private final ReviewsRestClient reviewsRestClient;
+
+    private final UpstreamProperties properties;
+
+    private final MoviesStreamProperties streamProperties;
+
+    private final UpstreamResilience upstreamResilience;
+
+    private final SingleFlight<String, Movie> movieSingleFlight = new SingleFlight<>();
+
+    @Autowired
+    public MoviesService(final MovieInfoCache movieInfoCache,
+                         final MoviesInfoRestClient moviesInfoRestClient,
+                         final ReviewsRestClient reviewsRestClient,
+                         final UpstreamProperties properties,
+                         final MoviesStreamProperties streamProperties,
+                         final UpstreamResilience upstreamResilience,
+                         final MeterRegistry meterRegistry) {
+        this.movieInfoCache = movieInfoCache;
+        this.moviesInfoRestClient = moviesInfoRestClient;
+        this.reviewsRestClient = reviewsRestClient;
+        this.properties = properties;
+        this.streamProperties = streamProperties;
+        this.upstreamResilience = upstreamResilience;
+
+        Gauge.builder("movies.singleflight.in-flight", movieSingleFlight, SingleFlight::inFlight)
+                .description("Movie aggregations currently running upstream")
+                .register(meterRegistry);
+        FunctionCounter.builder("movies.singleflight.coalesced", movieSingleFlight, SingleFlight::coalesced)
+                .description("Movie requests answered by an aggregation already in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * MovieInfo e reviews são buscados ao mesmo tempo, então a latência é a
+     * da chamada mais lenta e não a soma das duas. Sem MovieInfo não há Movie;
+     * já as reviews são opcionais e um problema nelas não derruba a resposta.
+     * O MovieInfo vem do cache local, que só vai ao movies-info-service em
+     * misses e atualizações.
+     * Requisições simultâneas para o mesmo filme compartilham uma única busca
+     * nos upstreams.
+     */
+    public Mono<Movie> retrieveMovieById(final String movieId) {
+
+        return movieSingleFlight.execute(movieId, this::aggregateMovie);
+    }
+
+    private Mono<Movie> aggregateMovie(final String movieId) {
+
+        return Mono.zip(movieInfoCache.get(movieId), retrieveReviews(movieId))
+                .map(movie -> new Movie(movie.getT1(), movie.getT2()))
+                .name("movies.aggregate").metrics();
+    }
+
+    /**
+     * As reviews chegam uma a uma conforme o array JSON é lido. Se o tempo
+     * acabar, ou o movies-review-service falhar no meio da resposta, o Movie
+     * segue com as reviews recebidas até ali. Com o circuit breaker aberto ou
+     * o bulkhead cheio o Movie segue sem reviews. Um 4xx indica uma
+     * requisição errada deste serviço e continua sendo propagado, por isso ids
+     * que não são numéricos, como os ObjectId gerados pelo movies-info-service,
+     * nem chegam ao movies-review-service: o Movie segue sem reviews, como no
+     * stream.
+     */
+    private Mono<List<Review>> retrieveReviews(final String movieId) {
+
+        if (parseMovieInfoId(movieId) == null) {
+            return Mono.just(List.of());
+        }
+
+        // uma resposta cortada pelo tempo conta como chamada lenta no circuit breaker
+        final Flux<Review> reviews = reviewsRestClient.retrieveReviews(movieId)
+                .name(UPSTREAM_METRICS).tag("upstream", UpstreamResilience.REVIEWS).tag("operation", "retrieveReviews")
+                .metrics()
+                .take(properties.getReviewsTimeout());
+
+        return upstreamResilience.protect(UpstreamResilience.REVIEWS, reviews)
+                .onErrorResume(ex -> !(ex instanceof ReviewsClientException), ex -> {
+                    log.warn("Reviews for movie {} are incomplete: {}", movieId, ex.getMessage());
+                    return Mono.empty();
+                })
+                .collectList();
+    }
+
+    /**
+     * Todos os Movie do catálogo, ou de um ano, na ordem do movies-info-service.
+     * Os MovieInfo são agrupados em lotes de batchSize e cada lote busca as
+     * reviews em uma única requisição; no máximo concurrency lotes ficam em
+     * andamento, então a memória usada não depende do tamanho do catálogo.
+     *
+     * <p>O stream não passa pelos circuit breakers: ele é longo por natureza
+     * e não deve abrir o circuito usado pela busca de um único filme.
+     */
+    public Flux<Movie> streamMovies(final Integer year) {
+
+        return moviesInfoRestClient.streamMovieInfos(year, streamProperties.getMoviesInfoPageSize())
+                .name(UPSTREAM_METRICS).tag("upstream", UpstreamResilience.MOVIES_INFO).tag("operation", "streamMovieInfos")
+                .metrics()
+                .buffer(streamProperties.getBatchSize())
+                .flatMapSequential(this::aggregateMovies, streamProperties.getConcurrency(),
+                        streamProperties.getBatchSize())
+                .name("movies.stream").metrics();
+    }
+
+    private Flux<Movie> aggregateMovies(final List<MovieInfo> movieInfos) {
+
+        return retrieveReviews(movieInfos)
+                .flatMapMany(reviews -> Flux.fromIterable(movieInfos)
+                        .map(movieInfo -> {
+                            final Long movieInfoId = parseMovieInfoId(movieInfo.getMovieInfoId());
+                            return new Movie(movieInfo,
+                                    movieInfoId == null ? List.of() : reviews.getOrDefault(movieInfoId, List.of()));
+                        }));
+    }
+
+    /**
+     * O movies-review-service identifica os filmes por ids numéricos; os
+     * demais seguem sem reviews. Assim como na busca de um filme, uma falha
+     * nas reviews não interrompe o stream.
+     */
+    private Mono<Map<Long, List<Review>>> retrieveReviews(final List<MovieInfo> movieInfos) {
+
+        final List<Long> movieInfoIds = movieInfos.stream()
+                .map(movieInfo -> parseMovieInfoId(movieInfo.getMovieInfoId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        if (movieInfoIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        return reviewsRestClient.retrieveReviews(movieInfoIds, streamProperties.getReviewsPerMovie())
+                .name(UPSTREAM_METRICS).tag("upstream", UpstreamResilience.REVIEWS).tag("operation", "retrieveReviewsBatch")
+                .metrics()
+                .take(streamProperties.getReviewsTimeout())
+                .onErrorResume(ex -> !(ex instanceof ReviewsClientException), ex -> {
+                    log.warn("Reviews for {} movies are incomplete: {}", movieInfoIds.size(), ex.getMessage());
+                    return Mono.empty();
+                })
+                .collectMap(MovieInfoReviews::getMovieInfoId, MovieInfoReviews::getReviews);
+    }
+
+    private static Long parseMovieInfoId(final String movieInfoId) {
+
+        try {
+            return movieInfoId == null ? null : Long.valueOf(movieInfoId);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+}
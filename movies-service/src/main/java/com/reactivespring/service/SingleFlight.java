@@ -0,0 +1,61 @@
+package com.reactivespring.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Junta chamadas concorrentes para a mesma chave: enquanto uma busca está em
+ * andamento, quem pedir a mesma chave recebe o mesmo Mono ao invés de
+ * disparar outra. O resultado, ou o erro, só é compartilhado durante a
+ * execução; assim que ela termina a próxima chamada busca de novo.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    public Mono<V> execute(final K key, final Function<K, Mono<V>> loader) {
+
+        return Mono.defer(() -> {
+
+            final Mono<V> existing = inFlight.get(key);
+            if (existing != null) {
+                coalesced.increment();
+                return existing;
+            }
+
+            // o Mono precisa conhecer a si mesmo para sair do mapa só se ainda for o atual
+            final AtomicReference<Mono<V>> self = new AtomicReference<>();
+            final Mono<V> flight = loader.apply(key)
+                    .doFinally(signal -> inFlight.remove(key, self.get()))
+                    .cache();
+            self.set(flight);
+
+            final Mono<V> raced = inFlight.putIfAbsent(key, flight);
+            if (raced != null) {
+                coalesced.increment();
+                return raced;
+            }
+
+            return flight;
+        });
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Chamadas atendidas por uma busca que já estava em andamento.
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+}
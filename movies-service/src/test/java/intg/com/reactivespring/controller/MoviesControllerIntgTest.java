@@ -1,4 +1,212 @@
 package com.reactivespring.controller;
 
+import com.reactivespring.domain.Movie;
+import com.reactivespring.service.MovieInfoCache;
+import com.reactivespring.service.MovieInfoCaches;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 8084)
+@TestPropertySource(properties = {
+        "movies.upstream.movies-info-url=http://localhost:8084/v1/movies-info",
+        "movies.upstream.reviews-url=http://localhost:8084/v1/reviews",
+        "movies.upstream.reviews-timeout=500ms"
+})
 public class MoviesControllerIntgTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MovieInfoCache movieInfoCache;
+
+    private static final String MOVIES_URL = "/v1/movies";
+
+    @AfterEach
+    void tearDown() {
+        MovieInfoCaches.invalidateAll(movieInfoCache);
+    }
+
+    @Test
+    void retrieveMovieById() {
+
+        var movieId = "1";
+
+        stubFor(get(urlEqualTo("/v1/movies-info/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .withQueryParam("movieInfoId", equalTo(movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", movieId)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(Movie.class)
+                .consumeWith(movieEntityExchangeResult -> {
+                    var movie = movieEntityExchangeResult.getResponseBody();
+                    assert movie != null;
+                    assertEquals("Batman Begins", movie.getMovieInfo().getName());
+                    assertEquals(2, movie.getReviewList().size());
+                });
+    }
+
+    @Test
+    void retrieveMovieById_objectIdWithoutReviews() {
+
+        var movieId = "5f8d0d55b54764421b7156c9";
+
+        stubFor(get(urlEqualTo("/v1/movies-info/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+
+        // o movies-review-service recusa movieInfoId que não é numérico
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse().withStatus(400)));
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", movieId)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(Movie.class)
+                .consumeWith(movieEntityExchangeResult -> {
+                    var movie = movieEntityExchangeResult.getResponseBody();
+                    assert movie != null;
+                    assertEquals("Batman Begins", movie.getMovieInfo().getName());
+                    assertTrue(movie.getReviewList().isEmpty());
+                });
+
+        verify(0, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+    }
+
+    @Test
+    void retrieveMovieById_moviesInfoNotFound() {
+
+        var movieId = "def";
+
+        stubFor(get(urlEqualTo("/v1/movies-info/" + movieId))
+                .willReturn(aResponse().withStatus(404)));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", movieId)
+                .exchange()
+                .expectStatus()
+                .isNotFound()
+                .expectBody(String.class)
+                .isEqualTo("There is no MovieInfo available for the passed in Id : " + movieId);
+    }
+
+    @Test
+    void retrieveMovieById_moviesInfoServerError() {
+
+        var movieId = "abc";
+
+        stubFor(get(urlEqualTo("/v1/movies-info/" + movieId))
+                .willReturn(aResponse()
+                        .withStatus(500)
+                        .withBody("MovieInfo Service Unavailable")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", movieId)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(502)
+                .expectBody(String.class)
+                .isEqualTo("Server Exception in MoviesInfoService MovieInfo Service Unavailable");
+    }
+
+    @Test
+    void retrieveMovieById_reviewsSlow() {
+
+        var movieId = "1";
+
+        stubFor(get(urlEqualTo("/v1/movies-info/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")
+                        .withFixedDelay(3000)));
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", movieId)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(Movie.class)
+                .consumeWith(movieEntityExchangeResult -> {
+                    var movie = movieEntityExchangeResult.getResponseBody();
+                    assert movie != null;
+                    assertNotNull(movie.getMovieInfo());
+                    assertTrue(movie.getReviewList().isEmpty());
+                });
+    }
+
+    @Test
+    void streamMovies() {
+
+        stubFor(get(urlPathEqualTo("/v1/movies-info"))
+                .withHeader("Accept", containing("application/x-ndjson"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/x-ndjson")
+                        .withBodyFile("movieinfos.ndjson")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews/batch"))
+                .withQueryParam("movieInfoIds", equalTo("1,2"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews-batch.json")));
+
+        var movies = webTestClient.get()
+                .uri(MOVIES_URL)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Movie.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(movies);
+        assertEquals(2, movies.size());
+        assertEquals("Batman Begins", movies.get(0).getMovieInfo().getName());
+        assertEquals(1, movies.get(0).getReviewList().size());
+        assertEquals("The Dark Knight", movies.get(1).getMovieInfo().getName());
+        assertTrue(movies.get(1).getReviewList().isEmpty());
+    }
+
 }
@@ -0,0 +1,109 @@
+package com.reactivespring.client;
+
+import com.reactivespring.config.UpstreamProperties;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoviesInfoRestClientTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private MoviesInfoRestClient client(final HttpStatus status, final String body) {
+        return client(List.of(status), body);
+    }
+
+    /**
+     * Responde com os status na ordem, repetindo o último.
+     */
+    private MoviesInfoRestClient client(final List<HttpStatus> statuses, final String body) {
+
+        var webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    var attempt = requests.getAndIncrement();
+                    return Mono.just(ClientResponse.create(statuses.get(Math.min(attempt, statuses.size() - 1)))
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(body)
+                            .build());
+                })
+                .build();
+
+        var properties = new UpstreamProperties();
+        properties.getRetry().setMinBackoff(Duration.ofMillis(1));
+
+        return new MoviesInfoRestClient(webClient, properties, new UpstreamRetry(properties, new SimpleMeterRegistry()),
+                new UpstreamHedging(properties, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void retrieveMovieInfo() {
+
+        // formato publicado pelo movies-info-service
+        var body = "{\"id\":\"abc\",\"title\":\"Batman Begins\",\"year\":2005,"
+                + "\"cast\":[\"Christian Bale\"],\"releasedAt\":\"2005-06-15\"}";
+
+        StepVerifier.create(client(HttpStatus.OK, body).retrieveMovieInfo("abc"))
+                .assertNext(movieInfo -> {
+                    assertEquals("abc", movieInfo.getMovieInfoId());
+                    assertEquals("Batman Begins", movieInfo.getName());
+                    assertEquals(LocalDate.parse("2005-06-15"), movieInfo.getRelease_date());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void retrieveMovieInfo_retryServerError() {
+
+        var body = "{\"id\":\"abc\",\"title\":\"Batman Begins\",\"year\":2005}";
+
+        StepVerifier.create(client(List.of(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.OK), body).retrieveMovieInfo("abc"))
+                .assertNext(movieInfo -> assertEquals("Batman Begins", movieInfo.getName()))
+                .verifyComplete();
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void retrieveMovieInfo_notFound() {
+
+        StepVerifier.create(client(HttpStatus.NOT_FOUND, "").retrieveMovieInfo("abc"))
+                .expectErrorSatisfies(ex -> {
+                    assertTrue(ex instanceof MoviesInfoClientException);
+                    assertEquals(404, ((MoviesInfoClientException) ex).getStatusCode());
+                })
+                .verify();
+
+        // 4xx nunca é repetido
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void retrieveMovieInfo_serverError() {
+
+        StepVerifier.create(client(HttpStatus.INTERNAL_SERVER_ERROR, "boom").retrieveMovieInfo("abc"))
+                .expectErrorSatisfies(ex -> {
+                    assertTrue(ex instanceof MoviesInfoServerException);
+                    assertEquals("Server Exception in MoviesInfoService boom", ex.getMessage());
+                })
+                .verify();
+
+        assertEquals(3, requests.get());
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.reactivespring.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryBudgetTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void withdrawUntilEmpty() {
+
+        var retryBudget = new RetryBudget(0.1, 0, 2, now::get);
+
+        assertTrue(retryBudget.tryWithdraw());
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+    }
+
+    @Test
+    void depositRatioPerRequest() {
+
+        var retryBudget = new RetryBudget(0.1, 0, 2, now::get);
+        retryBudget.tryWithdraw();
+        retryBudget.tryWithdraw();
+
+        // 10 requisições pagam um retry
+        for (int i = 0; i < 9; i++) {
+            retryBudget.deposit();
+        }
+        assertFalse(retryBudget.tryWithdraw());
+
+        retryBudget.deposit();
+        assertTrue(retryBudget.tryWithdraw());
+    }
+
+    @Test
+    void refillOverTime() {
+
+        var retryBudget = new RetryBudget(0.1, 10, 5, now::get);
+        for (int i = 0; i < 5; i++) {
+            retryBudget.tryWithdraw();
+        }
+        assertFalse(retryBudget.tryWithdraw());
+
+        now.addAndGet(100_000_000L);
+        assertTrue(retryBudget.tryWithdraw());
+
+        // o saldo nunca passa do máximo
+        now.addAndGet(60_000_000_000L);
+        assertEquals(5, retryBudget.balance(), 0.001);
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.reactivespring.client;
+
+import com.reactivespring.config.UpstreamProperties;
+import com.reactivespring.exception.ReviewsClientException;
+import com.reactivespring.exception.ReviewsServerException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReviewsRestClientTest {
+
+    private ReviewsRestClient client(final HttpStatus status, final String body) {
+
+        var webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    assertEquals("movieInfoId=1", request.url().getQuery());
+                    return Mono.just(ClientResponse.create(status)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(body)
+                            .build());
+                })
+                .build();
+
+        var properties = new UpstreamProperties();
+        properties.getRetry().setMinBackoff(Duration.ofMillis(1));
+
+        return new ReviewsRestClient(webClient, properties, new UpstreamRetry(properties, new SimpleMeterRegistry()),
+                new UpstreamHedging(properties, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void retrieveReviews() {
+
+        var body = "[{\"reviewId\":\"1\",\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0},"
+                + "{\"reviewId\":\"2\",\"movieInfoId\":1,\"comment\":\"Excellent Movie\",\"rating\":8.0}]";
+
+        StepVerifier.create(client(HttpStatus.OK, body).retrieveReviews("1"))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void retrieveReviews_notFound() {
+
+        StepVerifier.create(client(HttpStatus.NOT_FOUND, "").retrieveReviews("1"))
+                .verifyComplete();
+    }
+
+    @Test
+    void retrieveReviews_clientError() {
+
+        StepVerifier.create(client(HttpStatus.BAD_REQUEST, "review.movieInfoId must be a number").retrieveReviews("1"))
+                .expectError(ReviewsClientException.class)
+                .verify();
+    }
+
+    @Test
+    void retrieveReviews_serverError() {
+
+        StepVerifier.create(client(HttpStatus.SERVICE_UNAVAILABLE, "").retrieveReviews("1"))
+                .expectError(ReviewsServerException.class)
+                .verify();
+    }
+
+    @Test
+    void retrieveReviews_batch() {
+
+        var webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    assertEquals("/v1/reviews/batch", request.url().getPath());
+                    assertEquals("movieInfoIds=1,2&limit=5", request.url().getRawQuery().replace("%2C", ","));
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body("[{\"movieInfoId\":1,\"reviews\":[{\"reviewId\":\"1\",\"movieInfoId\":1,"
+                                    + "\"comment\":\"Awesome Movie\",\"rating\":9.0}]},"
+                                    + "{\"movieInfoId\":2,\"reviews\":[]}]")
+                            .build());
+                })
+                .build();
+
+        var properties = new UpstreamProperties();
+        var client = new ReviewsRestClient(webClient, properties, new UpstreamRetry(properties, new SimpleMeterRegistry()),
+                new UpstreamHedging(properties, new SimpleMeterRegistry()));
+
+        StepVerifier.create(client.retrieveReviews(List.of(1L, 2L), 5))
+                .assertNext(movieInfoReviews -> assertEquals(1, movieInfoReviews.getReviews().size()))
+                .assertNext(movieInfoReviews -> assertEquals(2L, movieInfoReviews.getMovieInfoId()))
+                .verifyComplete();
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.reactivespring.client;
+
+import com.reactivespring.config.UpstreamProperties;
+import com.reactivespring.exception.MoviesInfoServerException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamHedgingTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UpstreamProperties properties = new UpstreamProperties();
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        properties.getHedge().setEnabled(true);
+        properties.getHedge().setMaxDelay(Duration.ofMillis(50));
+    }
+
+    /**
+     * Cada inscrição é uma requisição: responde com os Mono na ordem.
+     */
+    private Mono<String> upstream(final List<Mono<String>> responses) {
+        return Mono.defer(() -> responses.get(attempts.getAndIncrement()));
+    }
+
+    private double hedges(final String outcome) {
+        return meterRegistry.get("movies.upstream.hedges")
+                .tag("upstream", UpstreamResilience.MOVIES_INFO)
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+
+    @Test
+    void hedge_slowFirstAttempt() {
+
+        var firstCancelled = new AtomicBoolean();
+        var upstream = upstream(List.of(
+                Mono.<String>never().doOnCancel(() -> firstCancelled.set(true)),
+                Mono.just("hedged")));
+
+        StepVerifier.create(new UpstreamHedging(properties, meterRegistry).hedge(UpstreamResilience.MOVIES_INFO, upstream))
+                .expectNext("hedged")
+                .verifyComplete();
+
+        assertEquals(2, attempts.get());
+        assertTrue(firstCancelled.get());
+        // só a tentativa que respondeu entra na latência, não a cancelada
+        assertEquals(1, meterRegistry.get("movies.upstream.hedge.latency")
+                .tag("upstream", UpstreamResilience.MOVIES_INFO)
+                .timer()
+                .count());
+        assertEquals(1, hedges("won"));
+    }
+
+    @Test
+    void hedge_fastFirstAttempt() {
+
+        var upstream = upstream(List.of(Mono.just("first"), Mono.just("hedged")));
+
+        StepVerifier.create(new UpstreamHedging(properties, meterRegistry).hedge(UpstreamResilience.MOVIES_INFO, upstream))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void hedge_failedHedgeIsIgnored() {
+
+        var upstream = upstream(List.of(
+                Mono.just("first").delayElement(Duration.ofMillis(200)),
+                Mono.error(new MoviesInfoServerException("Server Exception in MoviesInfoService"))));
+
+        StepVerifier.create(new UpstreamHedging(properties, meterRegistry).hedge(UpstreamResilience.MOVIES_INFO, upstream))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertEquals(2, attempts.get());
+        assertEquals(0, hedges("won"));
+    }
+
+    @Test
+    void hedge_budgetExhausted() {
+
+        properties.getHedge().setBudgetRatio(0);
+        properties.getHedge().setBudgetMinHedgesPerSecond(0);
+        properties.getHedge().setBudgetMaxHedges(0);
+
+        var upstream = upstream(List.of(
+                Mono.just("first").delayElement(Duration.ofMillis(200)),
+                Mono.just("hedged")));
+
+        StepVerifier.create(new UpstreamHedging(properties, meterRegistry).hedge(UpstreamResilience.MOVIES_INFO, upstream))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertEquals(1, attempts.get());
+        assertEquals(1, hedges("budget_exhausted"));
+    }
+
+    @Test
+    void hedge_disabled() {
+
+        properties.getHedge().setEnabled(false);
+        var upstream = upstream(List.of(Mono.just("first").delayElement(Duration.ofMillis(200))));
+
+        StepVerifier.create(new UpstreamHedging(properties, meterRegistry).hedge(UpstreamResilience.MOVIES_INFO, upstream))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertEquals(1, attempts.get());
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.reactivespring.client;
+
+import com.reactivespring.config.UpstreamProperties;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UpstreamResilienceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private UpstreamResilience upstreamResilience;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new UpstreamProperties();
+        properties.getCircuitBreaker().setSlidingWindowSize(4);
+        properties.getCircuitBreaker().setMinimumNumberOfCalls(4);
+        properties.getCircuitBreaker().setWaitDurationInOpenState(Duration.ofMillis(100));
+        properties.getCircuitBreaker().setPermittedNumberOfCallsInHalfOpenState(1);
+        properties.getBulkhead().setMaxConcurrentCalls(1);
+
+        upstreamResilience = new UpstreamResilience(properties, meterRegistry);
+    }
+
+    @Test
+    void circuitOpensOnServerErrors() {
+
+        var failing = Mono.error(new MoviesInfoServerException("Server Exception in MoviesInfoService"));
+
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(upstreamResilience.protect(UpstreamResilience.MOVIES_INFO, failing))
+                    .expectError(MoviesInfoServerException.class)
+                    .verify();
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN,
+                upstreamResilience.circuitBreaker(UpstreamResilience.MOVIES_INFO).getState());
+
+        // aberto, o upstream nem é chamado
+        StepVerifier.create(upstreamResilience.protect(UpstreamResilience.MOVIES_INFO, Mono.just("movieInfo")))
+                .expectError(CallNotPermittedException.class)
+                .verify();
+
+        // o circuito das reviews continua fechado
+        assertEquals(CircuitBreaker.State.CLOSED,
+                upstreamResilience.circuitBreaker(UpstreamResilience.REVIEWS).getState());
+
+        assertEquals(1, meterRegistry.get("movies.upstream.circuitbreaker.transitions")
+                .tag("upstream", UpstreamResilience.MOVIES_INFO)
+                .tag("to", "OPEN")
+                .counter()
+                .count());
+    }
+
+    @Test
+    void halfOpenProbeClosesCircuit() {
+
+        var circuitBreaker = upstreamResilience.circuitBreaker(UpstreamResilience.MOVIES_INFO);
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+
+        StepVerifier.create(upstreamResilience.protect(UpstreamResilience.MOVIES_INFO, Mono.just("movieInfo")))
+                .expectNext("movieInfo")
+                .verifyComplete();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void clientErrorsAreIgnored() {
+
+        var notFound = Mono.error(new MoviesInfoClientException("There is no MovieInfo available", 404));
+
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(upstreamResilience.protect(UpstreamResilience.MOVIES_INFO, notFound))
+                    .expectError(MoviesInfoClientException.class)
+                    .verify();
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED,
+                upstreamResilience.circuitBreaker(UpstreamResilience.MOVIES_INFO).getState());
+    }
+
+    @Test
+    void bulkheadRejectsConcurrentCalls() {
+
+        var pending = upstreamResilience.protect(UpstreamResilience.REVIEWS, Mono.never()).subscribe();
+
+        StepVerifier.create(upstreamResilience.protect(UpstreamResilience.REVIEWS, Mono.just("review")))
+                .expectError(BulkheadFullException.class)
+                .verify();
+
+        pending.dispose();
+
+        StepVerifier.create(upstreamResilience.protect(UpstreamResilience.REVIEWS, Mono.just("review")))
+                .expectNext("review")
+                .verifyComplete();
+    }
+
+}
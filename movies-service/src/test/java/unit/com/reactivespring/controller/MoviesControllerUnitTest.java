@@ -1,4 +1,313 @@
 package com.reactivespring.controller;
 
+import com.reactivespring.client.MoviesInfoRestClient;
+import com.reactivespring.client.ReviewsRestClient;
+import com.reactivespring.client.UpstreamResilience;
+import com.reactivespring.config.MovieInfoCacheProperties;
+import com.reactivespring.config.MoviesStreamProperties;
+import com.reactivespring.config.UpstreamProperties;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoReviews;
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.exception.ReviewsServerException;
+import com.reactivespring.service.MovieInfoCache;
+import com.reactivespring.service.MovieInfoCaches;
+import com.reactivespring.service.MoviesService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(MoviesController.class)
+@Import({MoviesService.class, MovieInfoCache.class, UpstreamResilience.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties({UpstreamProperties.class, MovieInfoCacheProperties.class, MoviesStreamProperties.class})
+@AutoConfigureWebTestClient
+@TestPropertySource(properties = {
+        "movies.upstream.movies-info-timeout=500ms",
+        "movies.upstream.reviews-timeout=300ms",
+        "movies.stream.batch-size=2"
+})
 public class MoviesControllerUnitTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private MoviesInfoRestClient moviesInfoRestClientMock;
+
+    @MockBean
+    private ReviewsRestClient reviewsRestClientMock;
+
+    @Autowired
+    private UpstreamResilience upstreamResilience;
+
+    @Autowired
+    private MovieInfoCache movieInfoCache;
+
+    private static final String MOVIES_URL = "/v1/movies";
+
+    @AfterEach
+    void tearDown() {
+        upstreamResilience.circuitBreaker(UpstreamResilience.MOVIES_INFO).reset();
+        upstreamResilience.circuitBreaker(UpstreamResilience.REVIEWS).reset();
+        MovieInfoCaches.invalidateAll(movieInfoCache);
+    }
+
+    private final MovieInfo movieInfo = new MovieInfo("1", "Batman Begins", 2005,
+            List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+
+    @Test
+    void retrieveMovieById() {
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo("1")).thenReturn(Mono.just(movieInfo));
+        when(reviewsRestClientMock.retrieveReviews("1")).thenReturn(Flux.just(
+                new Review("1", 1L, "Awesome Movie", 9.0),
+                new Review("2", 1L, "Excellent Movie", 8.0)));
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", "1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(Movie.class)
+                .consumeWith(movieEntityExchangeResult -> {
+                    var movie = movieEntityExchangeResult.getResponseBody();
+                    assert movie != null;
+                    assertEquals("Batman Begins", movie.getMovieInfo().getName());
+                    assertEquals(2, movie.getReviewList().size());
+                });
+    }
+
+    @Test
+    void retrieveMovieById_objectIdWithoutReviews() {
+
+        var movieId = "5f8d0d55b54764421b7156c9";
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo(movieId)).thenReturn(Mono.just(
+                new MovieInfo(movieId, "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15"))));
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", movieId)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(Movie.class)
+                .consumeWith(movieEntityExchangeResult -> {
+                    var movie = movieEntityExchangeResult.getResponseBody();
+                    assert movie != null;
+                    assertEquals("Batman Begins", movie.getMovieInfo().getName());
+                    assertTrue(movie.getReviewList().isEmpty());
+                });
+
+        // o movies-review-service só aceita movieInfoId numérico
+        verify(reviewsRestClientMock, never()).retrieveReviews(movieId);
+    }
+
+    @Test
+    void retrieveMovieById_partialReviewsOnTimeout() {
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo("1")).thenReturn(Mono.just(movieInfo));
+        when(reviewsRestClientMock.retrieveReviews("1")).thenReturn(Flux.concat(
+                Flux.just(new Review("1", 1L, "Awesome Movie", 9.0)),
+                Flux.just(new Review("2", 1L, "Excellent Movie", 8.0)).delayElements(Duration.ofSeconds(5))));
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", "1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(Movie.class)
+                .consumeWith(movieEntityExchangeResult -> {
+                    var movie = movieEntityExchangeResult.getResponseBody();
+                    assert movie != null;
+                    assertEquals(1, movie.getReviewList().size());
+                });
+    }
+
+    @Test
+    void retrieveMovieById_reviewsServerError() {
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo("1")).thenReturn(Mono.just(movieInfo));
+        when(reviewsRestClientMock.retrieveReviews("1"))
+                .thenReturn(Flux.error(new ReviewsServerException("Server Exception in ReviewsService")));
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", "1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(Movie.class)
+                .consumeWith(movieEntityExchangeResult -> {
+                    var movie = movieEntityExchangeResult.getResponseBody();
+                    assert movie != null;
+                    assertTrue(movie.getReviewList().isEmpty());
+                });
+    }
+
+    @Test
+    void retrieveMovieById_notFound() {
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo("def"))
+                .thenReturn(Mono.error(new MoviesInfoClientException("There is no MovieInfo available for the passed in Id : def", 404)));
+        when(reviewsRestClientMock.retrieveReviews("def")).thenReturn(Flux.empty());
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", "def")
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
+    @Test
+    void retrieveMovieById_moviesInfoTimeout() {
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo("1")).thenReturn(Mono.never());
+        when(reviewsRestClientMock.retrieveReviews("1")).thenReturn(Flux.empty());
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", "1")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(502);
+    }
+
+    @Test
+    void retrieveMovieById_moviesInfoServerError() {
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo("1"))
+                .thenReturn(Mono.error(new MoviesInfoServerException("Server Exception in MoviesInfoService")));
+        when(reviewsRestClientMock.retrieveReviews("1")).thenReturn(Flux.empty());
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", "1")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(502);
+    }
+
+    @Test
+    void retrieveMovieById_reviewsCircuitOpen() {
+
+        upstreamResilience.circuitBreaker(UpstreamResilience.REVIEWS).transitionToOpenState();
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo("1")).thenReturn(Mono.just(movieInfo));
+        when(reviewsRestClientMock.retrieveReviews("1")).thenReturn(Flux.just(
+                new Review("1", 1L, "Awesome Movie", 9.0)));
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", "1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(Movie.class)
+                .consumeWith(movieEntityExchangeResult -> {
+                    var movie = movieEntityExchangeResult.getResponseBody();
+                    assert movie != null;
+                    assertNotNull(movie.getMovieInfo());
+                    assertTrue(movie.getReviewList().isEmpty());
+                });
+    }
+
+    @Test
+    void retrieveMovieById_moviesInfoCircuitOpen() {
+
+        upstreamResilience.circuitBreaker(UpstreamResilience.MOVIES_INFO).transitionToOpenState();
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo("1")).thenReturn(Mono.just(movieInfo));
+        when(reviewsRestClientMock.retrieveReviews("1")).thenReturn(Flux.empty());
+
+        webTestClient.get()
+                .uri(MOVIES_URL + "/{id}", "1")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(503);
+    }
+
+    @Test
+    void retrieveMovieById_concurrentRequestsAreCoalesced() {
+
+        var calls = new AtomicInteger();
+        when(moviesInfoRestClientMock.retrieveMovieInfo("1")).thenReturn(Mono.just(movieInfo)
+                .delayElement(Duration.ofMillis(300))
+                .doOnSubscribe(subscription -> calls.incrementAndGet()));
+        when(reviewsRestClientMock.retrieveReviews("1")).thenReturn(Flux.empty());
+
+        // exchange() bloqueia até a resposta, então cada requisição roda em uma thread
+        Flux.range(0, 10)
+                .parallel(10)
+                .runOn(Schedulers.boundedElastic())
+                .map(i -> webTestClient.get()
+                        .uri(MOVIES_URL + "/{id}", "1")
+                        .exchange()
+                        .expectStatus()
+                        .is2xxSuccessful())
+                .sequential()
+                .blockLast();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void streamMovies() {
+
+        when(moviesInfoRestClientMock.streamMovieInfos(eq(2005), anyInt())).thenReturn(Flux.just(
+                new MovieInfo("1", "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15")),
+                new MovieInfo("2", "Sin City", 2005, List.of("Bruce Willis"), LocalDate.parse("2005-04-01")),
+                new MovieInfo("abc", "Serenity", 2005, List.of("Nathan Fillion"), LocalDate.parse("2005-09-30"))));
+        when(reviewsRestClientMock.retrieveReviews(anyCollection(), anyInt())).thenReturn(Flux.just(
+                new MovieInfoReviews(1L, List.of(new Review("1", 1L, "Awesome Movie", 9.0))),
+                new MovieInfoReviews(2L, List.of())));
+
+        var movies = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(MOVIES_URL).queryParam("year", 2005).build())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(Movie.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(movies);
+        assertEquals(3, movies.size());
+        assertEquals("Batman Begins", movies.get(0).getMovieInfo().getName());
+        assertEquals(1, movies.get(0).getReviewList().size());
+        assertTrue(movies.get(1).getReviewList().isEmpty());
+        // id não numérico não é enviado ao movies-review-service
+        assertEquals("Serenity", movies.get(2).getMovieInfo().getName());
+        assertTrue(movies.get(2).getReviewList().isEmpty());
+
+        // batch-size=2: o primeiro lote com dois ids, o segundo sem ids numéricos
+        verify(reviewsRestClientMock, times(1)).retrieveReviews(anyCollection(), anyInt());
+    }
+
 }
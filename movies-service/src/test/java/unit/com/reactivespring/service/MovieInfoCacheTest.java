@@ -0,0 +1,149 @@
+package com.reactivespring.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.client.MoviesInfoRestClient;
+import com.reactivespring.client.UpstreamResilience;
+import com.reactivespring.config.MovieInfoCacheProperties;
+import com.reactivespring.config.UpstreamProperties;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.*;
+
+class MovieInfoCacheTest {
+
+    private final MoviesInfoRestClient moviesInfoRestClientMock = mock(MoviesInfoRestClient.class);
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final MovieInfoCacheProperties properties = new MovieInfoCacheProperties();
+
+    private final MovieInfo batmanBegins = new MovieInfo("abc", "Batman Begins", 2005,
+            List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+
+    private final MovieInfo batmanBeginsUpdated = new MovieInfo("abc", "Batman Begins (Remastered)", 2005,
+            List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+
+    @BeforeEach
+    void setUp() {
+        properties.setRefreshAfter(Duration.ofMinutes(1));
+        properties.setExpireAfter(Duration.ofMinutes(30));
+    }
+
+    private MovieInfoCache movieInfoCache() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var upstreamProperties = new UpstreamProperties();
+
+        // atualizações rodam na própria thread para o teste não depender de tempo
+        return new MovieInfoCache(moviesInfoRestClientMock, upstreamProperties,
+                new UpstreamResilience(upstreamProperties, meterRegistry), properties,
+                new ObjectMapper().findAndRegisterModules(), meterRegistry, nanos::get, Runnable::run);
+    }
+
+    private void advance(final Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    void get_servesStaleWhileRefreshing() {
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo("abc"))
+                .thenReturn(Mono.just(batmanBegins), Mono.just(batmanBeginsUpdated));
+        var movieInfoCache = movieInfoCache();
+
+        StepVerifier.create(movieInfoCache.get("abc")).expectNext(batmanBegins).verifyComplete();
+        StepVerifier.create(movieInfoCache.get("abc")).expectNext(batmanBegins).verifyComplete();
+        verify(moviesInfoRestClientMock, times(1)).retrieveMovieInfo("abc");
+
+        advance(Duration.ofMinutes(2));
+
+        // a versão antiga responde e dispara a atualização
+        StepVerifier.create(movieInfoCache.get("abc")).expectNext(batmanBegins).verifyComplete();
+        StepVerifier.create(movieInfoCache.get("abc")).expectNext(batmanBeginsUpdated).verifyComplete();
+        verify(moviesInfoRestClientMock, times(2)).retrieveMovieInfo("abc");
+    }
+
+    @Test
+    void get_keepsStaleWhenRefreshFails() {
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo("abc"))
+                .thenReturn(Mono.just(batmanBegins),
+                        Mono.error(new MoviesInfoServerException("Server Exception in MoviesInfoService")));
+        var movieInfoCache = movieInfoCache();
+
+        StepVerifier.create(movieInfoCache.get("abc")).expectNext(batmanBegins).verifyComplete();
+
+        advance(Duration.ofMinutes(2));
+
+        StepVerifier.create(movieInfoCache.get("abc")).expectNext(batmanBegins).verifyComplete();
+        StepVerifier.create(movieInfoCache.get("abc")).expectNext(batmanBegins).verifyComplete();
+
+        // depois de expireAfter não há mais o que servir
+        advance(Duration.ofMinutes(30));
+
+        StepVerifier.create(movieInfoCache.get("abc"))
+                .expectError(MoviesInfoServerException.class)
+                .verify();
+    }
+
+    @Test
+    void get_refreshNotFoundDropsStale() {
+
+        var notFound = new MoviesInfoClientException("There is no MovieInfo available for the passed in Id : abc", 404);
+        when(moviesInfoRestClientMock.retrieveMovieInfo("abc"))
+                .thenReturn(Mono.just(batmanBegins), Mono.error(notFound), Mono.error(notFound));
+        var movieInfoCache = movieInfoCache();
+
+        StepVerifier.create(movieInfoCache.get("abc")).expectNext(batmanBegins).verifyComplete();
+
+        advance(Duration.ofMinutes(2));
+
+        // o refresh descobre que o filme foi removido; a versão antiga não é mais servida
+        StepVerifier.create(movieInfoCache.get("abc")).expectNext(batmanBegins).verifyComplete();
+        StepVerifier.create(movieInfoCache.get("abc")).expectError(MoviesInfoClientException.class).verify();
+        verify(moviesInfoRestClientMock, times(3)).retrieveMovieInfo("abc");
+    }
+
+    @Test
+    void get_fallsBackToOffHeapCopy() {
+
+        properties.getOffHeap().setEnabled(true);
+        properties.getOffHeap().setExpireAfter(Duration.ofHours(24));
+        when(moviesInfoRestClientMock.retrieveMovieInfo("abc"))
+                .thenReturn(Mono.just(batmanBegins),
+                        Mono.error(new MoviesInfoServerException("Server Exception in MoviesInfoService")));
+        var movieInfoCache = movieInfoCache();
+
+        StepVerifier.create(movieInfoCache.get("abc")).expectNext(batmanBegins).verifyComplete();
+
+        // fora da memória do processo, mas ainda dentro do prazo da cópia fora do heap
+        advance(Duration.ofHours(1));
+
+        StepVerifier.create(movieInfoCache.get("abc")).expectNext(batmanBegins).verifyComplete();
+    }
+
+    @Test
+    void get_notFoundIsNotCached() {
+
+        when(moviesInfoRestClientMock.retrieveMovieInfo("def"))
+                .thenReturn(Mono.error(new MoviesInfoClientException("There is no MovieInfo available for the passed in Id : def", 404)));
+        var movieInfoCache = movieInfoCache();
+
+        StepVerifier.create(movieInfoCache.get("def")).expectError(MoviesInfoClientException.class).verify();
+        StepVerifier.create(movieInfoCache.get("def")).expectError(MoviesInfoClientException.class).verify();
+
+        verify(moviesInfoRestClientMock, times(2)).retrieveMovieInfo("def");
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.reactivespring.service;
+
+/**
+ * Dá aos testes de outros pacotes acesso ao invalidateAll, que o
+ * MovieInfoCache só expõe no próprio pacote. Testes que compartilham o
+ * contexto do Spring limpam o cache entre um teste e outro.
+ */
+public final class MovieInfoCaches {
+
+    private MovieInfoCaches() {
+    }
+
+    public static void invalidateAll(final MovieInfoCache movieInfoCache) {
+        movieInfoCache.invalidateAll();
+    }
+
+}
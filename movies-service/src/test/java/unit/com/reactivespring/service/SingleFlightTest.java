@@ -0,0 +1,89 @@
+package com.reactivespring.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrentCallsShareOneLoad() {
+
+        var upstream = Sinks.<String>one();
+
+        var first = singleFlight.execute("abc", key -> upstream.asMono().doOnSubscribe(s -> loads.incrementAndGet()));
+        var second = singleFlight.execute("abc", key -> Mono.just("not called"));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> upstream.tryEmitValue("movie"))
+                .assertNext(movies -> {
+                    assertEquals("movie", movies.getT1());
+                    assertEquals("movie", movies.getT2());
+                })
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.coalesced());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void resultIsNotKeptAfterCompletion() {
+
+        StepVerifier.create(singleFlight.execute("abc", key -> Mono.fromCallable(loads::incrementAndGet).map(String::valueOf)))
+                .expectNext("1")
+                .verifyComplete();
+
+        StepVerifier.create(singleFlight.execute("abc", key -> Mono.fromCallable(loads::incrementAndGet).map(String::valueOf)))
+                .expectNext("2")
+                .verifyComplete();
+    }
+
+    @Test
+    void errorsAreSharedThenForgotten() {
+
+        var upstream = Sinks.<String>one();
+
+        var first = singleFlight.execute("abc", key -> upstream.asMono());
+        var second = singleFlight.execute("abc", key -> upstream.asMono());
+
+        StepVerifier.create(Mono.zip(first.onErrorReturn("failed"), second.onErrorReturn("failed")))
+                .then(() -> upstream.tryEmitError(new IllegalStateException("boom")))
+                .assertNext(movies -> {
+                    assertEquals("failed", movies.getT1());
+                    assertEquals("failed", movies.getT2());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(singleFlight.execute("abc", key -> Mono.just("movie")))
+                .expectNext("movie")
+                .verifyComplete();
+    }
+
+    @Test
+    void differentKeysLoadIndependently() {
+
+        StepVerifier.create(Mono.zip(
+                        singleFlight.execute("abc", key -> Mono.fromCallable(loads::incrementAndGet)
+                                .map(count -> key)),
+                        singleFlight.execute("def", key -> Mono.fromCallable(loads::incrementAndGet)
+                                .map(count -> key))))
+                .assertNext(movies -> {
+                    assertEquals("abc", movies.getT1());
+                    assertEquals("def", movies.getT2());
+                })
+                .verifyComplete();
+
+        assertEquals(2, loads.get());
+    }
+
+}